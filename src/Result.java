@@ -1,15 +1,20 @@
-import java.lang.StackWalker.StackFrame;
-import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
-import annotations.IfError;
-import annotations.Log;
-import logic.LoggerLogic;
+import logic.AnnotationLogic;
+import logic.LogPolicy;
+import logic.LogScope;
+import logic.Provenance;
+import logic.Tracing;
+import logic.Variant;
+import logic.jfr.ErrCreatedEvent;
+import logic.jfr.ResultCreatedEvent;
 
 
 /**
@@ -73,7 +78,10 @@ public sealed interface Result<T, E> permits Result.Ok, Result.Err {
          */
         public Ok {
             Objects.requireNonNull(value, "Ok value cannot be null");
-            checkAnnotation("Ok(" + value + ")");
+            ResultCreatedEvent.emit(Variant.OK, value);
+            if (Tracing.traced(Variant.OK)) {
+                checkAnnotation(Variant.OK, value);
+            }
         }
 
         @Override
@@ -89,7 +97,25 @@ public sealed interface Result<T, E> permits Result.Ok, Result.Err {
         /** Prevents {@code null} errors – forces meaningful error objects. */
         public Err {
             Objects.requireNonNull(error, "Error value cannot be null");
-            checkAnnotation("Err(" + error + ")");
+            ResultCreatedEvent.emit(Variant.ERR, error);
+            ErrCreatedEvent.emit(error);
+            if (Provenance.ENABLED) {
+                Provenance.capture(this);
+            }
+            if (Tracing.traced(Variant.ERR)) {
+                checkAnnotation(Variant.ERR, error);
+            }
+        }
+
+        /**
+         * Where this error was created, innermost frame first. Recorded only
+         * when {@code result.err.provenance=N} is set (top {@code N} frames);
+         * otherwise empty.
+         *
+         * @return the creation frames of this {@code Err}
+         */
+        public List<StackTraceElement> provenance() {
+            return Provenance.of(this);
         }
 
         @Override
@@ -98,44 +124,8 @@ public sealed interface Result<T, E> permits Result.Ok, Result.Err {
         }
     }
 
-    default void checkAnnotation(String value) {
-        StackWalker walker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
-        walker.forEach(frame -> {
-            Class<?> declaringClass = frame.getDeclaringClass();
-            String methodName = frame.getMethodName();
-
-            if ("<init>".equals(methodName))
-                return;
-
-            try {
-                Method method = findMethod(declaringClass, methodName, frame);
-                if (method != null) {
-                    Log log = method.getAnnotation(Log.class);
-                    IfError ifErr = method.getAnnotation(IfError.class);
-                    if (log != null) {
-                        LoggerLogic.print(log, frame, value);
-                    }
-                    if (ifErr != null && value.startsWith("Err")) {
-                        Method methocall = findMethod(declaringClass, ifErr.value(), frame);
-                        methocall.invoke(null);
-                    }
-                }
-            } catch (Exception ignored) {
-            }
-        });
-    }
-
-    private Method findMethod(Class<?> clazz, String name, StackFrame frame) {
-        var ms = clazz.getDeclaredMethods();
-        for (var i = 0; i < ms.length; i++) {
-            Method m = ms[i];
-            if (m.getName().equals(name)) {
-                if (m.getParameterCount() == frame.getMethodType().parameterCount()) {
-                    return m;
-                }
-            }
-        }
-        return null;
+    default void checkAnnotation(Variant variant, Object payload) {
+        AnnotationLogic.check(variant, payload);
     }
 
     // ======================================================================
@@ -168,6 +158,74 @@ public sealed interface Result<T, E> permits Result.Ok, Result.Err {
         return new Err<>(error);
     }
 
+    /**
+     * Like {@link #ok}, but never attributed: no {@code @Log}, {@code @IfError}
+     * or scope processing, whatever the caller. Meant for inner loops
+     * (parsers, validators) that create many short-lived results.
+     *
+     * @param value the success value (must not be {@code null})
+     * @param <T>   success type
+     * @param <E>   error type
+     * @return {@code Ok(value)}
+     * @throws NullPointerException if {@code value} is {@code null}
+     */
+    static <T, E> Result<T, E> okUntraced(T value) {
+        boolean suspended = Tracing.suspend();
+        Result<T, E> result;
+        try {
+            result = new Ok<>(value);
+        } finally {
+            Tracing.resume(suspended);
+        }
+        return Tracing.markUntraced(result);
+    }
+
+    /**
+     * Like {@link #err}, but never attributed – see {@link #okUntraced}.
+     *
+     * @param error the error value (must not be {@code null})
+     * @param <T>   success type
+     * @param <E>   error type
+     * @return {@code Err(error)}
+     * @throws NullPointerException if {@code error} is {@code null}
+     */
+    static <T, E> Result<T, E> errUntraced(E error) {
+        boolean suspended = Tracing.suspend();
+        Result<T, E> result;
+        try {
+            result = new Err<>(error);
+        } finally {
+            Tracing.resume(suspended);
+        }
+        return Tracing.markUntraced(result);
+    }
+
+    /**
+     * Runs {@code body} with every {@code Result} created inside it (on this
+     * thread and on threads it starts) logged according to {@code policy}.
+     *
+     * <p>
+     * Attribution is a single context read per result instead of a stack walk,
+     * which makes it suitable for whole request handlers, including on virtual
+     * threads. Inside a scope {@code @Log} / {@code @IfError} are not consulted.
+     * Threads started inside the scope inherit it; see {@code logic.LogScope}
+     * for pools that start workers lazily.
+     * </p>
+     *
+     * <pre>{@code
+     * Response r = Result.scope(LogPolicy.errorsOnly("checkout"), () -> handle(request));
+     * }</pre>
+     *
+     * @param policy what to log
+     * @param body   the work to run
+     * @param <R>    body result type
+     * @return whatever {@code body} returns
+     * @throws Exception whatever {@code body} throws
+     */
+    static <R> R scope(LogPolicy policy, Callable<R> body) throws Exception {
+        return LogScope.run(policy, body);
+    }
+
     // ======================================================================
     // State checking
     // ======================================================================
@@ -281,7 +339,7 @@ public sealed interface Result<T, E> permits Result.Ok, Result.Err {
 
     /**
      * Applies {@code mapper} to the success value if present.
-     * Errors are propagated unchanged.
+     * Errors are propagated unchanged (the same instance is returned).
      *
      * @param mapper function {@code T → U}
      * @param <U>    new success type
@@ -290,13 +348,13 @@ public sealed interface Result<T, E> permits Result.Ok, Result.Err {
     default <U> Result<U, E> map(Function<? super T, ? extends U> mapper) {
         return switch (this) {
             case Ok(var value) -> new Ok<>(mapper.apply(value));
-            case Err(var error) -> new Err<>(error);
+            case Err(var error) -> propagateErr();
         };
     }
 
     /**
      * Applies {@code mapper} to the error value if present.
-     * Success values are propagated unchanged.
+     * Success values are propagated unchanged (the same instance is returned).
      *
      * @param mapper function {@code E → F}
      * @param <F>    new error type
@@ -304,7 +362,7 @@ public sealed interface Result<T, E> permits Result.Ok, Result.Err {
      */
     default <F> Result<T, F> mapErr(Function<? super E, ? extends F> mapper) {
         return switch (this) {
-            case Ok(var value) -> new Ok<>(value);
+            case Ok(var value) -> propagateOk();
             case Err(var error) -> new Err<>(mapper.apply(error));
         };
     }
@@ -320,10 +378,25 @@ public sealed interface Result<T, E> permits Result.Ok, Result.Err {
             Function<? super T, ? extends Result<U, E>> mapper) {
         return switch (this) {
             case Ok(var value) -> mapper.apply(value);
-            case Err(var error) -> new Err<>(error);
+            case Err(var error) -> propagateErr();
         };
     }
 
+    /**
+     * An {@code Err} holds no {@code T}, so it is returned as is instead of
+     * being rebuilt: no allocation and no second round of logging.
+     */
+    @SuppressWarnings("unchecked")
+    private <U> Result<U, E> propagateErr() {
+        return (Result<U, E>) this;
+    }
+
+    /** An {@code Ok} holds no {@code E} – see {@link #propagateErr()}. */
+    @SuppressWarnings("unchecked")
+    private <F> Result<T, F> propagateOk() {
+        return (Result<T, F>) this;
+    }
+
     // ======================================================================
     // Side effects
     // ======================================================================
@@ -459,7 +532,7 @@ public sealed interface Result<T, E> permits Result.Ok, Result.Err {
     default <U> Result<U, E> and(Result<U, E> other) {
         return switch (this) {
             case Ok(var value) -> other;
-            case Err(var error) -> new Err<>(error);
+            case Err(var error) -> propagateErr();
         };
     }
 
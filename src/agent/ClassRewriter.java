@@ -0,0 +1,443 @@
+package agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal class-file rewriter used by {@link ResultTransformer}.
+ *
+ * <p>
+ * For every method annotated with {@code @Log} or {@code @IfError} that
+ * returns a {@code Result} (and every method returning a {@code Result} of a
+ * class annotated with {@code @Log}), the original body is kept under a
+ * private synthetic name ({@code name$result}) and a new method with the
+ * original name, descriptor, flags and annotations is added:
+ * </p>
+ *
+ * <pre>{@code
+ * Result name(args) {
+ *     Result r = name$result(args);
+ *     logic.WeaveHooks.returned(r, this_or_null, ThisClass.class, SITE_ID);
+ *     return r;
+ * }
+ * }</pre>
+ *
+ * <p>
+ * Existing code is copied byte for byte and the constant pool is only ever
+ * appended to, so no offsets, stack map frames or exception tables need to be
+ * recomputed. The wrapper has no branches and therefore needs no stack map
+ * either.
+ * </p>
+ *
+ * <p>
+ * Only annotations present in the class file itself are seen here: a
+ * {@code @Log} inherited from a superclass or a package applies to the
+ * methods woven for their own annotations, but does not cause weaving.
+ * </p>
+ */
+final class ClassRewriter {
+
+    /** Allocates the constant site id of a woven method. */
+    @FunctionalInterface
+    interface SiteIds {
+        int register(String className, String methodName, String descriptor);
+    }
+
+    static final String IMPL_SUFFIX = "$result";
+
+    private static final String HOOK_OWNER = "logic/WeaveHooks";
+    private static final String HOOK_NAME = "returned";
+    private static final String HOOK_DESC = "(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/Class;I)V";
+
+    private static final String[] ANNOTATIONS = { "Lannotations/Log;", "Lannotations/IfError;" };
+    private static final String[] CLASS_ANNOTATIONS = { "Lannotations/Log;" };
+    private static final String[] RETURN_TYPES = { ")LResult;", ")LResult$Ok;", ")LResult$Err;" };
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_SYNCHRONIZED = 0x0020;
+    private static final int ACC_BRIDGE = 0x0040;
+    private static final int ACC_VARARGS = 0x0080;
+    private static final int ACC_NATIVE = 0x0100;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private record Attribute(int nameIndex, int start, int end) {
+    }
+
+    private record MethodInfo(int start, int end, int access, int nameIndex, int descIndex,
+            List<Attribute> attributes) {
+    }
+
+    private final byte[] in;
+    private String[] utf8;
+    private int[] classNames;
+
+    // appended constant pool entries
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private int nextIndex;
+
+    private ClassRewriter(byte[] in) {
+        this.in = in;
+    }
+
+    /**
+     * @return the rewritten class file, or {@code null} if there is nothing to
+     *         weave or the class file is not understood
+     */
+    static byte[] rewrite(byte[] classfile, SiteIds ids) {
+        try {
+            return new ClassRewriter(classfile).rewrite(ids);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private byte[] rewrite(SiteIds ids) throws IOException {
+        if (u4(0) != 0xCAFEBABE || u2(6) < 49) {
+            return null;
+        }
+        int cpCount = u2(8);
+        int pos = readPool(cpCount);
+        int cpEnd = pos;
+
+        int classAccess = u2(pos);
+        int thisClass = u2(pos + 2);
+        if ((classAccess & ACC_INTERFACE) != 0) {
+            return null;
+        }
+        String className = utf8[classNames[thisClass]];
+        pos += 6;
+        pos += 2 + 2 * u2(pos);
+
+        int fieldCount = u2(pos);
+        pos += 2;
+        for (int i = 0; i < fieldCount; i++) {
+            pos = skipMember(pos);
+        }
+
+        int methodsStart = pos;
+        int methodCount = u2(pos);
+        pos += 2;
+        List<MethodInfo> methods = new ArrayList<>(methodCount);
+        for (int i = 0; i < methodCount; i++) {
+            int start = pos;
+            int access = u2(pos);
+            int nameIndex = u2(pos + 2);
+            int descIndex = u2(pos + 4);
+            int attrCount = u2(pos + 6);
+            pos += 8;
+            List<Attribute> attributes = new ArrayList<>(attrCount);
+            for (int a = 0; a < attrCount; a++) {
+                int end = pos + 6 + u4(pos + 2);
+                attributes.add(new Attribute(u2(pos), pos, end));
+                pos = end;
+            }
+            methods.add(new MethodInfo(start, pos, access, nameIndex, descIndex, attributes));
+        }
+        int methodsEnd = pos;
+
+        int classAttrCount = u2(pos);
+        pos += 2;
+        List<Attribute> classAttributes = new ArrayList<>(classAttrCount);
+        for (int a = 0; a < classAttrCount; a++) {
+            int end = pos + 6 + u4(pos + 2);
+            classAttributes.add(new Attribute(u2(pos), pos, end));
+            pos = end;
+        }
+        boolean classLogged = annotated(classAttributes, CLASS_ANNOTATIONS);
+
+        nextIndex = cpCount;
+        ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(methodBytes);
+        int woven = 0;
+        for (MethodInfo m : methods) {
+            if (!shouldWeave(m, classLogged)) {
+                out.write(in, m.start(), m.end() - m.start());
+                continue;
+            }
+            String name = utf8[m.nameIndex()];
+            String desc = utf8[m.descIndex()];
+            int site = ids.register(className, name, desc);
+            writeImpl(out, m, name);
+            writeWrapper(out, m, thisClass, name, desc, site);
+            woven++;
+        }
+        if (woven == 0 || nextIndex > 0xFFFF) {
+            return null;
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream(in.length + poolBytes.size() + methodBytes.size());
+        DataOutputStream d = new DataOutputStream(result);
+        d.write(in, 0, 8);
+        d.writeShort(nextIndex);
+        d.write(in, 10, cpEnd - 10);
+        poolBytes.writeTo(d);
+        d.write(in, cpEnd, methodsStart - cpEnd);
+        d.writeShort(methodCount + woven);
+        methodBytes.writeTo(d);
+        d.write(in, methodsEnd, in.length - methodsEnd);
+        d.flush();
+        return result.toByteArray();
+    }
+
+    private boolean shouldWeave(MethodInfo m, boolean classLogged) {
+        if ((m.access() & (ACC_ABSTRACT | ACC_NATIVE | ACC_BRIDGE | ACC_SYNTHETIC)) != 0) {
+            return false;
+        }
+        if (utf8[m.nameIndex()].startsWith("<")) {
+            return false;
+        }
+        String desc = utf8[m.descIndex()];
+        boolean returnsResult = false;
+        for (String suffix : RETURN_TYPES) {
+            returnsResult |= desc.endsWith(suffix);
+        }
+        return returnsResult && code(m) != null && (classLogged || annotated(m.attributes(), ANNOTATIONS));
+    }
+
+    private Attribute code(MethodInfo m) {
+        for (Attribute a : m.attributes()) {
+            if ("Code".equals(utf8[a.nameIndex()])) {
+                return a;
+            }
+        }
+        return null;
+    }
+
+    private boolean annotated(List<Attribute> attributes, String[] annotations) {
+        for (Attribute a : attributes) {
+            if (!"RuntimeVisibleAnnotations".equals(utf8[a.nameIndex()])) {
+                continue;
+            }
+            int pos = a.start() + 6;
+            int count = u2(pos);
+            pos += 2;
+            for (int i = 0; i < count; i++) {
+                String type = utf8[u2(pos)];
+                for (String wanted : annotations) {
+                    if (wanted.equals(type)) {
+                        return true;
+                    }
+                }
+                pos = skipAnnotation(pos);
+            }
+        }
+        return false;
+    }
+
+    /** Original body under a private synthetic name, carrying only its Code. */
+    private void writeImpl(DataOutputStream out, MethodInfo m, String name) throws IOException {
+        int access = (m.access() & ~(ACC_PUBLIC | ACC_PROTECTED | ACC_VARARGS)) | ACC_PRIVATE | ACC_SYNTHETIC;
+        Attribute code = code(m);
+        out.writeShort(access);
+        out.writeShort(utf8Entry(name + IMPL_SUFFIX));
+        out.writeShort(m.descIndex());
+        out.writeShort(1);
+        out.write(in, code.start(), code.end() - code.start());
+    }
+
+    /** Method with the original signature and attributes, delegating to the impl. */
+    private void writeWrapper(DataOutputStream out, MethodInfo m, int thisClass, String name, String desc, int site)
+            throws IOException {
+        boolean isStatic = (m.access() & ACC_STATIC) != 0;
+        Attribute codeAttr = code(m);
+
+        int implRef = methodRef(thisClass, name + IMPL_SUFFIX, desc);
+        int hookRef = methodRef(classEntry(HOOK_OWNER), HOOK_NAME, HOOK_DESC);
+        int siteConst = integerEntry(site);
+
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(codeBytes);
+        int slot = 0;
+        if (!isStatic) {
+            code.writeByte(0x2a); // aload_0
+            slot = 1;
+        }
+        for (int i = 1; desc.charAt(i) != ')'; i++) {
+            char c = desc.charAt(i);
+            int op;
+            int size = 1;
+            switch (c) {
+                case 'J' -> {
+                    op = 0x16; // lload
+                    size = 2;
+                }
+                case 'F' -> op = 0x17; // fload
+                case 'D' -> {
+                    op = 0x18; // dload
+                    size = 2;
+                }
+                case 'L', '[' -> {
+                    op = 0x19; // aload
+                    while (desc.charAt(i) == '[') {
+                        i++;
+                    }
+                    if (desc.charAt(i) == 'L') {
+                        i = desc.indexOf(';', i);
+                    }
+                }
+                default -> op = 0x15; // iload
+            }
+            if (slot > 0xFF) {
+                code.writeByte(0xc4); // wide
+                code.writeByte(op);
+                code.writeShort(slot);
+            } else {
+                code.writeByte(op);
+                code.writeByte(slot);
+            }
+            slot += size;
+        }
+        code.writeByte(isStatic ? 0xb8 : 0xb7); // invokestatic / invokespecial
+        code.writeShort(implRef);
+        code.writeByte(0x59); // dup
+        code.writeByte(isStatic ? 0x01 : 0x2a); // aconst_null / aload_0
+        code.writeByte(0x13); // ldc_w
+        code.writeShort(thisClass);
+        code.writeByte(0x13); // ldc_w
+        code.writeShort(siteConst);
+        code.writeByte(0xb8); // invokestatic
+        code.writeShort(hookRef);
+        code.writeByte(0xb0); // areturn
+
+        int others = m.attributes().size() - 1;
+        out.writeShort(m.access() & ~ACC_SYNCHRONIZED);
+        out.writeShort(m.nameIndex());
+        out.writeShort(m.descIndex());
+        out.writeShort(others + 1);
+        for (Attribute a : m.attributes()) {
+            if (a != codeAttr) {
+                out.write(in, a.start(), a.end() - a.start());
+            }
+        }
+        out.writeShort(codeAttr.nameIndex());
+        out.writeInt(2 + 2 + 4 + codeBytes.size() + 2 + 2);
+        out.writeShort(Math.max(slot, 5));
+        out.writeShort(slot);
+        out.writeInt(codeBytes.size());
+        codeBytes.writeTo(out);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // attributes
+    }
+
+    // ----------------------------------------------------------------------
+    // Constant pool
+
+    private int readPool(int count) throws IOException {
+        utf8 = new String[count];
+        classNames = new int[count];
+        int pos = 10;
+        for (int i = 1; i < count; i++) {
+            int tag = in[pos] & 0xFF;
+            switch (tag) {
+                case 1 -> {
+                    int len = u2(pos + 1);
+                    utf8[i] = new DataInputStream(new ByteArrayInputStream(in, pos + 1, len + 2)).readUTF();
+                    pos += 3 + len;
+                }
+                case 7 -> {
+                    classNames[i] = u2(pos + 1);
+                    pos += 3;
+                }
+                case 8, 16, 19, 20 -> pos += 3;
+                case 15 -> pos += 4;
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> pos += 5;
+                case 5, 6 -> {
+                    pos += 9;
+                    i++;
+                }
+                default -> throw new IllegalArgumentException("unknown constant pool tag " + tag);
+            }
+        }
+        return pos;
+    }
+
+    private int utf8Entry(String value) throws IOException {
+        pool.writeByte(1);
+        pool.writeUTF(value);
+        return nextIndex++;
+    }
+
+    private int classEntry(String internalName) throws IOException {
+        int name = utf8Entry(internalName);
+        pool.writeByte(7);
+        pool.writeShort(name);
+        return nextIndex++;
+    }
+
+    private int integerEntry(int value) throws IOException {
+        pool.writeByte(3);
+        pool.writeInt(value);
+        return nextIndex++;
+    }
+
+    private int methodRef(int owner, String name, String desc) throws IOException {
+        int nameIndex = utf8Entry(name);
+        int descIndex = utf8Entry(desc);
+        pool.writeByte(12);
+        pool.writeShort(nameIndex);
+        pool.writeShort(descIndex);
+        int nat = nextIndex++;
+        pool.writeByte(10);
+        pool.writeShort(owner);
+        pool.writeShort(nat);
+        return nextIndex++;
+    }
+
+    // ----------------------------------------------------------------------
+    // Parsing helpers
+
+    private int skipMember(int pos) {
+        int attrCount = u2(pos + 6);
+        pos += 8;
+        for (int a = 0; a < attrCount; a++) {
+            pos += 6 + u4(pos + 2);
+        }
+        return pos;
+    }
+
+    private int skipAnnotation(int pos) {
+        int pairs = u2(pos + 2);
+        pos += 4;
+        for (int i = 0; i < pairs; i++) {
+            pos = skipElementValue(pos + 2);
+        }
+        return pos;
+    }
+
+    private int skipElementValue(int pos) {
+        char tag = (char) (in[pos] & 0xFF);
+        pos++;
+        return switch (tag) {
+            case 'e' -> pos + 4;
+            case '@' -> skipAnnotation(pos);
+            case '[' -> {
+                int count = u2(pos);
+                pos += 2;
+                for (int i = 0; i < count; i++) {
+                    pos = skipElementValue(pos);
+                }
+                yield pos;
+            }
+            default -> pos + 2;
+        };
+    }
+
+    private int u2(int pos) {
+        return ((in[pos] & 0xFF) << 8) | (in[pos + 1] & 0xFF);
+    }
+
+    private int u4(int pos) {
+        return (u2(pos) << 16) | u2(pos + 2);
+    }
+}
@@ -0,0 +1,30 @@
+package agent;
+
+import java.lang.instrument.Instrumentation;
+
+/**
+ * {@code java.lang.instrument} entry point for load-time weaving.
+ *
+ * <pre>{@code
+ * java -javaagent:result-agent.jar -cp app.jar Main
+ * }</pre>
+ *
+ * <p>
+ * With the agent installed, {@code @Log} / {@code @IfError} apply to exactly
+ * the {@code Result} returned by the annotated method: the return value is
+ * inspected by the woven method itself, and {@code Ok}/{@code Err} no longer
+ * walk the stack ({@code result.agent} is set, which turns
+ * {@code logic.AnnotationIndex} off). Annotated methods that do not return a
+ * {@code Result} are not woven and therefore no longer log.
+ * </p>
+ */
+public final class ResultAgent {
+
+    private ResultAgent() {
+    }
+
+    public static void premain(String args, Instrumentation inst) {
+        System.setProperty("result.agent", "true");
+        inst.addTransformer(new ResultTransformer());
+    }
+}
@@ -0,0 +1,31 @@
+package agent;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+
+import logic.WeaveHooks;
+
+/**
+ * Weaves {@code @Log} / {@code @IfError} methods as their classes are loaded.
+ * Classes of the JDK, the bootstrap loader and this library are left alone.
+ */
+final class ResultTransformer implements ClassFileTransformer {
+
+    private static final String[] SKIPPED = { "java/", "javax/", "jdk/", "sun/", "com/sun/", "agent/", "logic/",
+            "annotations/", "processing/" };
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+            ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        if (loader == null || className == null || classBeingRedefined != null) {
+            return null;
+        }
+        for (String prefix : SKIPPED) {
+            if (className.startsWith(prefix)) {
+                return null;
+            }
+        }
+        return ClassRewriter.rewrite(classfileBuffer,
+                WeaveHooks::register);
+    }
+}
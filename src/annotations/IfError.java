@@ -9,4 +9,25 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD)
 public @interface IfError {
     String value();
+
+    /**
+     * Runs the handler on a virtual thread instead of the thread that created
+     * the {@code Err}.
+     */
+    boolean async() default false;
+
+    /**
+     * For {@link #async()} handlers: interrupt the handler and count a timeout
+     * after this many milliseconds. {@code 0} means no limit.
+     */
+    long timeoutMillis() default 0;
+
+    /**
+     * Fires the handler at most once per this many milliseconds for this call
+     * site, off the calling thread, at the end of the window. A handler whose
+     * parameter accepts {@code logic.ErrorSummary} receives the count and the
+     * first/last error; other handlers receive the last error. {@code 0}
+     * fires once per {@code Err}.
+     */
+    long coalesceMillis() default 0;
 }
@@ -5,10 +5,33 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Logs the {@code Result}s created under the annotated method.
+ *
+ * <p>
+ * On a class or a package the annotation is the default policy of every
+ * method returning a {@code Result} in it; a method-level {@code @Log} wins
+ * over the class, the class over its superclasses and those over the package.
+ * </p>
+ */
 @Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.METHOD)
+@Target({ ElementType.METHOD, ElementType.TYPE, ElementType.PACKAGE })
 public @interface Log {
     boolean logError() default true;
 
     boolean logOk() default true;
-}
\ No newline at end of file
+
+    /**
+     * Logs only one in {@code everyN} {@code Ok} results of this method; every
+     * {@code Err} is still logged. Values below 2 log everything.
+     */
+    int everyN() default 1;
+
+    /**
+     * Maximum number of lines per second written for this method; the excess
+     * is summarised as "suppressed N similar events", at most once per second.
+     * {@code 0} falls back to the {@code result.log.maxPerSecond} system
+     * property (unlimited if unset).
+     */
+    int maxPerSecond() default 0;
+}
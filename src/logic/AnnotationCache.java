@@ -0,0 +1,208 @@
+package logic;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import annotations.IfError;
+import annotations.Log;
+
+/**
+ * Resolved {@code @Log} / {@code @IfError} metadata, one table per class.
+ *
+ * <p>
+ * Tables are built the first time a class shows up on a walked stack and are
+ * held by a {@link ClassValue}, so {@code getDeclaredMethods()} runs at most
+ * once per class and the table goes away together with the class when its
+ * loader is unloaded.
+ * </p>
+ *
+ * <p>
+ * Failures are cached just like successes: classes of the JDK and hidden
+ * classes (lambda proxies) get an empty table without any reflection, a class
+ * whose methods cannot be reflected over ({@link LinkageError},
+ * {@link SecurityException}) gets an empty table once, and synthetic or bridge
+ * methods ({@code lambda$main$0}, generic bridges) are never entered, so such
+ * frames cost one map miss on every later walk.
+ * </p>
+ *
+ * <p>
+ * A {@code @Log} on the class, one of its superclasses or its package is
+ * folded into the table when it is built: every method returning a
+ * {@code Result} without its own {@code @Log} gets that policy, so a walk
+ * still needs a single lookup per frame.
+ * </p>
+ */
+public final class AnnotationCache {
+
+    /**
+     * An annotated method and the {@link CallSites.CallSite} holding its
+     * resolved annotations. Methods without annotations are not entered.
+     *
+     * <p>
+     * {@link ClassValue} may compute a table more than once when threads race
+     * for a new class and keeps only one, so the call site is registered when
+     * the entry is first looked up, never for a table that lost.
+     * </p>
+     */
+    public static final class Entry {
+        private final Method method;
+        private final String descriptor;
+        private final Log log;
+        private final IfError ifError;
+        private volatile CallSites.CallSite site;
+
+        private Entry(Method method, String descriptor, Log log, IfError ifError) {
+            this.method = method;
+            this.descriptor = descriptor;
+            this.log = log;
+            this.ifError = ifError;
+        }
+
+        public Method method() {
+            return method;
+        }
+
+        public String descriptor() {
+            return descriptor;
+        }
+
+        /** @return the call site of this method, registered on first use */
+        public CallSites.CallSite site() {
+            CallSites.CallSite s = site;
+            if (s == null) {
+                synchronized (this) {
+                    s = site;
+                    if (s == null) {
+                        site = s = CallSites.register(method.getDeclaringClass().getName(), method.getName(),
+                                descriptor, log, ifError);
+                    }
+                }
+            }
+            return s;
+        }
+    }
+
+    private record Table(Map<String, Entry[]> byName) {
+    }
+
+    private static final Table EMPTY = new Table(Map.of());
+
+    private static final ClassValue<Table> TABLES = new ClassValue<>() {
+        @Override
+        protected Table computeValue(Class<?> type) {
+            if (skipped(type)) {
+                return EMPTY;
+            }
+            try {
+                return build(type);
+            } catch (LinkageError | SecurityException e) {
+                return EMPTY;
+            }
+        }
+    };
+
+    private AnnotationCache() {
+    }
+
+    /**
+     * Looks up an annotated method by name and exact JVM descriptor, so
+     * overloads are told apart. Overloads share one small array per name.
+     *
+     * @param clazz      declaring class
+     * @param name       method name
+     * @param descriptor JVM method descriptor
+     * @return the annotated method matching {@code name}/{@code descriptor},
+     *         or {@code null}
+     */
+    public static Entry lookup(Class<?> clazz, String name, String descriptor) {
+        Entry[] overloads = TABLES.get(clazz).byName().get(name);
+        return overloads == null ? null : match(overloads, descriptor);
+    }
+
+    /**
+     * Like {@link #lookup(Class, String, String)} for a walked frame. The
+     * frame's descriptor is only asked for when the name matches an annotated
+     * method, so frames of unannotated methods cost one map miss.
+     */
+    public static Entry lookup(Class<?> clazz, StackWalker.StackFrame frame) {
+        Entry[] overloads = TABLES.get(clazz).byName().get(frame.getMethodName());
+        return overloads == null ? null : match(overloads, frame.getDescriptor());
+    }
+
+    private static Entry match(Entry[] overloads, String descriptor) {
+        for (Entry entry : overloads) {
+            if (entry.descriptor().equals(descriptor)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param clazz class to inspect
+     * @return {@code true} if any declared method of {@code clazz} carries
+     *         {@code @Log} or {@code @IfError}
+     */
+    public static boolean hasAnnotations(Class<?> clazz) {
+        return !TABLES.get(clazz).byName().isEmpty();
+    }
+
+    private static boolean skipped(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        return loader == null || loader == ClassLoader.getPlatformClassLoader() || type.isHidden();
+    }
+
+    /**
+     * @return the {@code @Log} of {@code type}, of its nearest annotated
+     *         superclass or of its package, or {@code null}
+     */
+    static Log classPolicy(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            Log log = c.getDeclaredAnnotation(Log.class);
+            if (log != null) {
+                return log;
+            }
+        }
+        Package pkg = type.getPackage();
+        return pkg == null ? null : pkg.getDeclaredAnnotation(Log.class);
+    }
+
+    /** @return the {@code @Log} in effect for {@code m}, given its class policy */
+    static Log policy(Method m, Log classLog) {
+        Log log = m.getAnnotation(Log.class);
+        if (log != null || classLog == null) {
+            return log;
+        }
+        return "Result".equals(m.getReturnType().getNestHost().getName()) ? classLog : null;
+    }
+
+    private static Table build(Class<?> type) {
+        Map<String, Entry[]> table = new HashMap<>();
+        Log classLog = classPolicy(type);
+        for (Method m : type.getDeclaredMethods()) {
+            if (m.isSynthetic() || m.isBridge()) {
+                continue;
+            }
+            Log log = policy(m, classLog);
+            IfError ifError = m.getAnnotation(IfError.class);
+            if (log == null && ifError == null) {
+                continue;
+            }
+            String descriptor = MethodType.methodType(m.getReturnType(), m.getParameterTypes())
+                    .toMethodDescriptorString();
+            Entry entry = new Entry(m, descriptor, log, ifError);
+            Entry[] overloads = table.get(m.getName());
+            if (overloads == null) {
+                overloads = new Entry[] { entry };
+            } else {
+                overloads = Arrays.copyOf(overloads, overloads.length + 1);
+                overloads[overloads.length - 1] = entry;
+            }
+            table.put(m.getName(), overloads);
+        }
+        return new Table(Map.copyOf(table));
+    }
+}
@@ -0,0 +1,126 @@
+package logic;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Startup index of classes that declare {@code @Log} / {@code @IfError}
+ * methods.
+ *
+ * <p>
+ * Classes are registered through {@value #INDEX_RESOURCE} files on the class
+ * path (one fully qualified class name per line, {@code #} starts a comment)
+ * and through the {@code result.annotated.classes} system property (comma
+ * separated). The {@code result.annotations} property selects the mode:
+ * </p>
+ * <ul>
+ * <li>{@code auto} (default) / {@code on} – always walk the stack; an index
+ * found on the class path is not taken as a complete list, since any jar
+ * compiled without the processor may still carry annotations</li>
+ * <li>{@code indexed} – the registered classes are the complete list: tracing
+ * is on only when at least one of them can be loaded and actually carries an
+ * annotation. Build every code source with {@code -Aresult.index=true} before
+ * choosing this mode</li>
+ * <li>{@code off} – never walk the stack</li>
+ * </ul>
+ *
+ * <p>
+ * When the weaving agent is installed ({@code result.agent=true}) annotated
+ * methods report their own return value and the stack is never walked.
+ * </p>
+ *
+ * <p>
+ * The decision is captured in {@link #ENABLED}, a {@code static final} the JIT
+ * folds away, so with tracing off {@code Result.ok}/{@code Result.err} are a
+ * plain record allocation.
+ * </p>
+ */
+public final class AnnotationIndex {
+
+    public static final String INDEX_RESOURCE = "META-INF/result/annotated";
+
+    public static final boolean ENABLED = resolve();
+
+    private AnnotationIndex() {
+    }
+
+    private static boolean resolve() {
+        if (Boolean.getBoolean("result.agent")) {
+            return false;
+        }
+        String mode = System.getProperty("result.annotations", "auto").trim();
+        if ("off".equalsIgnoreCase(mode)) {
+            return false;
+        }
+        if (!"indexed".equalsIgnoreCase(mode)) {
+            return true;
+        }
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = AnnotationIndex.class.getClassLoader();
+        }
+        List<String> names = registeredClasses(loader);
+        if (names == null) {
+            // asked to trust an index, but none is registered: keep tracing on
+            return true;
+        }
+        boolean any = false;
+        for (String name : names) {
+            try {
+                // warms AnnotationCache for every registered class
+                any |= AnnotationCache.hasAnnotations(Class.forName(name, false, loader));
+            } catch (ClassNotFoundException | LinkageError ignored) {
+            }
+        }
+        return any;
+    }
+
+    /** @return registered class names, or {@code null} if nothing registers */
+    private static List<String> registeredClasses(ClassLoader loader) {
+        List<String> names = null;
+        try {
+            Enumeration<URL> resources = loader.getResources(INDEX_RESOURCE);
+            while (resources.hasMoreElements()) {
+                if (names == null) {
+                    names = new ArrayList<>();
+                }
+                read(resources.nextElement(), names);
+            }
+        } catch (IOException e) {
+            // an unreadable index says nothing: keep tracing on
+            return null;
+        }
+        String[] fromProperty = TraceConfig.listProperty("result.annotated.classes");
+        if (fromProperty.length > 0) {
+            if (names == null) {
+                names = new ArrayList<>();
+            }
+            names.addAll(List.of(fromProperty));
+        }
+        return names;
+    }
+
+    private static void read(URL url, List<String> names) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    names.add(line);
+                }
+            }
+        }
+    }
+}
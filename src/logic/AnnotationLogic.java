@@ -0,0 +1,126 @@
+package logic;
+
+import java.lang.StackWalker.StackFrame;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import logic.jfr.CheckAnnotationCostEvent;
+
+/**
+ * Walks the current stack looking for {@code @Log} / {@code @IfError} callers
+ * of a freshly built {@code Result}.
+ *
+ * <p>
+ * A single {@link StackWalker} is shared by every call. The walk is lazy, so
+ * with {@link TraceConfig#MAX_DEPTH}, {@link TraceConfig#STOP_AT_FIRST} or
+ * {@link TraceConfig#BOUNDARIES} set, frames past the cut-off are never
+ * materialised. Inside a {@link LogScope} the stack is not walked at all.
+ * </p>
+ */
+public final class AnnotationLogic {
+
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private AnnotationLogic() {
+    }
+
+    public static void check(Variant variant, Object payload) {
+        CheckAnnotationCostEvent cost = new CheckAnnotationCostEvent();
+        cost.begin();
+        LogPolicy scope = LogScope.current();
+        int frames = 0;
+        if (scope != null) {
+            LogScope.record(scope, variant, payload);
+        } else if (AnnotationIndex.ENABLED) {
+            frames = WALKER.walk(s -> scan(s, variant, payload));
+        }
+        if (cost.shouldCommit()) {
+            cost.mode = scope != null ? "scope" : "walk";
+            cost.frames = frames;
+            cost.commit();
+        }
+    }
+
+    /**
+     * Visits caller frames; the library's own frames on top of the stack
+     * ({@code check}, the {@code Result} constructor and factories) are
+     * skipped first and not counted against {@link TraceConfig#MAX_DEPTH}.
+     *
+     * @return number of caller frames visited
+     */
+    private static int scan(Stream<StackFrame> frames, Variant variant, Object payload) {
+        Iterator<StackFrame> it = frames.dropWhile(AnnotationLogic::internal).iterator();
+        int depth = 0;
+        while (depth < TraceConfig.MAX_DEPTH && it.hasNext()) {
+            StackFrame frame = it.next();
+            depth++;
+            if (crossesBoundary(frame.getClassName())) {
+                break;
+            }
+            if (visit(frame, variant, payload) && TraceConfig.STOP_AT_FIRST) {
+                break;
+            }
+        }
+        return depth;
+    }
+
+    private static boolean internal(StackFrame frame) {
+        String name = frame.getClassName();
+        return name.equals("Result") || name.startsWith("Result$") || name.startsWith("logic.");
+    }
+
+    private static boolean crossesBoundary(String className) {
+        for (String prefix : TraceConfig.BOUNDARIES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return {@code true} if the frame carried {@code @Log} or {@code @IfError} */
+    private static boolean visit(StackFrame frame, Variant variant, Object payload) {
+        Class<?> declaringClass = frame.getDeclaringClass();
+        String methodName = frame.getMethodName();
+
+        if ("<init>".equals(methodName))
+            return false;
+
+        AnnotationCache.Entry entry = AnnotationCache.lookup(declaringClass, frame);
+        if (entry == null) {
+            return false;
+        }
+        dispatch(declaringClass, null, entry.site(), frame.getLineNumber(), variant, payload);
+        return true;
+    }
+
+    /**
+     * Runs {@code @Log} / {@code @IfError} for one attributed call site. Shared
+     * by the stack walk and by woven methods ({@link WeaveHooks}).
+     *
+     * @param receiver {@code this} of the annotated method, if known
+     */
+    static void dispatch(Class<?> declaringClass, Object receiver, CallSites.CallSite site, int line,
+            Variant variant, Object payload) {
+        try {
+            if (site.logged && ResultCounters.ENABLED) {
+                ResultCounters.count(site, variant, payload);
+            }
+            if (ResultListeners.wants(site, variant)) {
+                ResultListeners.publish(ResultEvent.of(variant, payload, site.id(), site.methodName(), line));
+            }
+            if (site.handlerName != null && variant == Variant.ERR) {
+                ErrorHandler handler = site.handler(declaringClass);
+                if (handler.invocable(receiver) && site.coalesceMillis > 0) {
+                    HandlerExecutor.coalesce(site, handler, receiver, payload, site.coalesceMillis,
+                            site.timeoutMillis);
+                } else if (handler.invocable(receiver) && site.async) {
+                    HandlerExecutor.submit(handler, receiver, payload, site.timeoutMillis);
+                } else if (handler.invocable(receiver)) {
+                    HandlerExecutor.run(handler, receiver, payload);
+                }
+            }
+        } catch (Exception ignored) {
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package logic;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous sink: callers enqueue into a bounded lock-free ring buffer and
+ * a single daemon thread formats and prints in batches.
+ *
+ * <p>
+ * Configuration (system properties):
+ * </p>
+ * <ul>
+ * <li>{@code result.log.async.capacity} – ring size, rounded up to a power of
+ * two (default 8192)</li>
+ * <li>{@code result.log.async.batch} – maximum events per write (default
+ * 256)</li>
+ * <li>{@code result.log.async.overflow} – what a caller does when the ring is
+ * full: {@code drop} (default), {@code block} (wait, without spinning) until
+ * the writer frees space, or
+ * {@code sample}: above three quarters full only one in
+ * {@code result.log.async.sampleEvery} (default 16) events is kept</li>
+ * </ul>
+ *
+ * <p>
+ * Lost events are counted ({@link #dropped()}, {@link #sampledOut()}) and the
+ * writer thread reports new losses in the log itself. Whatever is still queued
+ * at shutdown is written by {@link #flush()}.
+ * </p>
+ *
+ * <p>
+ * An idle writer backs off exponentially and then parks until a producer
+ * wakes it, so a quiet application does not pay for a polling thread.
+ * </p>
+ */
+public final class AsyncSink implements LogSink {
+
+    public enum Overflow {
+        DROP, BLOCK, SAMPLE
+    }
+
+    private static final long MIN_IDLE_PARK_NANOS = 50_000;
+    private static final long MAX_IDLE_PARK_NANOS = 2_000_000;
+
+    private final int mask;
+    private final int batch;
+    private final Overflow overflow;
+    private final int sampleEvery;
+    private final int highWater;
+    private final PrintStream out;
+
+    private final AtomicReferenceArray<Object> buffer;
+    private final AtomicLongArray sequence;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final AtomicLong pressure = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean sleeping;
+
+    // Overflow.BLOCK producers wait here for the writer to free space
+    private final Object space = new Object();
+    private volatile int waiting;
+
+    AsyncSink() {
+        this(TraceConfig.intProperty("result.log.async.capacity", 8192),
+                TraceConfig.intProperty("result.log.async.batch", 256),
+                overflowProperty(),
+                TraceConfig.intProperty("result.log.async.sampleEvery", 16),
+                System.out);
+    }
+
+    public AsyncSink(int capacity, int batch, Overflow overflow, int sampleEvery, PrintStream out) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.batch = Math.max(1, batch);
+        this.overflow = overflow;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.highWater = size - size / 4;
+        this.out = out;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequence = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequence.set(i, i);
+        }
+        this.writer = LibraryThreads.unstarted("result-log-writer", true, this::drainLoop);
+        writer.start();
+    }
+
+    @Override
+    public void write(ResultEvent event) {
+        enqueue(event);
+    }
+
+    @Override
+    public void note(String line) {
+        enqueue(line);
+    }
+
+    /** @param entry a {@link ResultEvent} or an already rendered line */
+    private void enqueue(Object entry) {
+        if (overflow == Overflow.SAMPLE && tail.get() - head >= highWater
+                && pressure.getAndIncrement() % sampleEvery != 0) {
+            sampledOut.increment();
+            return;
+        }
+        if (offer(entry)) {
+            wakeWriter();
+        } else if (overflow != Overflow.BLOCK) {
+            dropped.increment();
+        } else {
+            awaitSpace(entry);
+        }
+    }
+
+    private void wakeWriter() {
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void awaitSpace(Object entry) {
+        boolean interrupted = false;
+        synchronized (space) {
+            waiting++;
+            try {
+                while (!offer(entry)) {
+                    LockSupport.unpark(writer);
+                    try {
+                        space.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                waiting--;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @return events discarded because the ring was full */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /** @return events skipped by {@link Overflow#SAMPLE} under pressure */
+    public long sampledOut() {
+        return sampledOut.sum();
+    }
+
+    private boolean offer(Object entry) {
+        long pos = tail.get();
+        for (;;) {
+            int index = (int) (pos & mask);
+            long diff = sequence.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer.lazySet(index, entry);
+                    sequence.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /** @return {@code true} if {@link #poll()} would return an entry */
+    private boolean ready() {
+        long pos = head;
+        return sequence.get((int) (pos & mask)) == pos + 1;
+    }
+
+    /** Single consumer: only the writer thread (or the shutdown flush) polls. */
+    private Object poll() {
+        long pos = head;
+        int index = (int) (pos & mask);
+        if (sequence.get(index) != pos + 1) {
+            return null;
+        }
+        Object entry = buffer.get(index);
+        buffer.lazySet(index, null);
+        sequence.set(index, pos + mask + 1);
+        head = pos + 1;
+        return entry;
+    }
+
+    private void drainLoop() {
+        StringBuilder text = new StringBuilder(batch * 64);
+        long reportedDropped = 0;
+        long reportedSampled = 0;
+        long idlePark = MIN_IDLE_PARK_NANOS;
+        while (true) {
+            int written = drainBatch(text);
+            if (written > 0 && waiting > 0) {
+                synchronized (space) {
+                    space.notifyAll();
+                }
+            }
+            long lost = dropped.sum();
+            long skipped = sampledOut.sum();
+            if (lost != reportedDropped || skipped != reportedSampled) {
+                out.printf("[result-log] %d events dropped, %d sampled out so far \n", lost, skipped);
+                reportedDropped = lost;
+                reportedSampled = skipped;
+            }
+            if (written > 0) {
+                idlePark = MIN_IDLE_PARK_NANOS;
+            } else if (idlePark < MAX_IDLE_PARK_NANOS) {
+                LockSupport.parkNanos(idlePark);
+                idlePark *= 2;
+            } else {
+                // announce before the last look, so a producer either sees the flag or we see its entry
+                sleeping = true;
+                if (!ready()) {
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+                idlePark = MIN_IDLE_PARK_NANOS;
+            }
+        }
+    }
+
+    private synchronized int drainBatch(StringBuilder text) {
+        text.setLength(0);
+        int n = 0;
+        Object entry;
+        while (n < batch && (entry = poll()) != null) {
+            text.append(entry instanceof ResultEvent event ? LoggerLogic.format(event) : entry);
+            n++;
+        }
+        if (n > 0) {
+            out.print(text);
+            out.flush();
+        }
+        return n;
+    }
+
+    @Override
+    public void flush() {
+        StringBuilder text = new StringBuilder();
+        while (drainBatch(text) > 0) {
+        }
+    }
+
+    private static Overflow overflowProperty() {
+        String raw = System.getProperty("result.log.async.overflow", "drop").trim();
+        try {
+            return Overflow.valueOf(raw.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Overflow.DROP;
+        }
+    }
+}
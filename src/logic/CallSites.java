@@ -0,0 +1,216 @@
+package logic;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import annotations.IfError;
+import annotations.Log;
+
+/**
+ * Registry of annotated call sites.
+ *
+ * <p>
+ * Each annotated method gets a dense, stable {@code int} id the first time it
+ * is resolved (stack walk or woven method). Events carry the id instead of
+ * strings; the names are looked up here only when something is rendered.
+ * </p>
+ *
+ * <p>
+ * The {@code @Log} / {@code @IfError} attributes are copied into plain final
+ * fields at registration, so the hot path never calls into the annotation
+ * proxies.
+ * </p>
+ */
+public final class CallSites {
+
+    /** An annotated method, plus the runtime state kept for it. */
+    public static final class CallSite {
+        private final int id;
+        private final String className;
+        private final String methodName;
+        private final String descriptor;
+
+        // resolved @Log; logged is false for @IfError-only sites
+        final boolean logged;
+        final boolean logOk;
+        final boolean logError;
+        final int everyN;
+        final int maxPerSecond;
+
+        // resolved @IfError; handlerName is null without one
+        final String handlerName;
+        final boolean async;
+        final long timeoutMillis;
+        final long coalesceMillis;
+
+        private volatile StripedCounter okSamples;
+        private volatile RateLimiter limiter;
+        private volatile ErrorHandler.Counters handlerCounters;
+        final AtomicReference<ErrorWindow> errorWindow = new AtomicReference<>();
+        final LongAdder okCount = new LongAdder();
+        final LongAdder errCount = new LongAdder();
+        // keyed by name, so counting never pins a class loader
+        final ConcurrentHashMap<String, LongAdder> errByClass = new ConcurrentHashMap<>();
+
+        private CallSite(int id, String className, String methodName, String descriptor, Log log,
+                IfError ifError) {
+            this.id = id;
+            this.className = className;
+            this.methodName = methodName;
+            this.descriptor = descriptor;
+            this.logged = log != null;
+            this.logOk = log != null && log.logOk();
+            this.logError = log != null && log.logError();
+            this.everyN = log != null ? log.everyN() : 1;
+            this.maxPerSecond = log != null ? log.maxPerSecond() : 0;
+            this.handlerName = ifError != null ? ifError.value() : null;
+            this.async = ifError != null && ifError.async();
+            this.timeoutMillis = ifError != null ? ifError.timeoutMillis() : 0;
+            this.coalesceMillis = ifError != null ? ifError.coalesceMillis() : 0;
+        }
+
+        private CallSite(int id, String name, boolean logOk, boolean logError) {
+            this.id = id;
+            this.className = "scope";
+            this.methodName = name;
+            this.descriptor = "";
+            this.logged = true;
+            this.logOk = logOk;
+            this.logError = logError;
+            this.everyN = 1;
+            this.maxPerSecond = 0;
+            this.handlerName = null;
+            this.async = false;
+            this.timeoutMillis = 0;
+            this.coalesceMillis = 0;
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public String className() {
+            return className;
+        }
+
+        public String methodName() {
+            return methodName;
+        }
+
+        /** @return JVM descriptor of the method, telling overloads apart; empty for scopes */
+        public String descriptor() {
+            return descriptor;
+        }
+
+        /** @return this site's {@code everyN} counter, created on first use */
+        StripedCounter okSamples() {
+            StripedCounter c = okSamples;
+            if (c == null) {
+                synchronized (this) {
+                    c = okSamples;
+                    if (c == null) {
+                        okSamples = c = new StripedCounter();
+                    }
+                }
+            }
+            return c;
+        }
+
+        /** @return this site's limiter, created on first use with {@code perSecond} */
+        RateLimiter limiter(int perSecond) {
+            RateLimiter l = limiter;
+            if (l == null) {
+                synchronized (this) {
+                    l = limiter;
+                    if (l == null) {
+                        limiter = l = new RateLimiter(perSecond);
+                    }
+                }
+            }
+            return l;
+        }
+
+        /** @return the limiter if already created, else {@code null} */
+        RateLimiter resolvedLimiter() {
+            return limiter;
+        }
+
+        /**
+         * @return the {@code @IfError} handler of {@code owner}, resolved on
+         *         first use ({@link ErrorHandler#NONE} if it does not resolve)
+         */
+        ErrorHandler handler(Class<?> owner) {
+            Map<CallSite, ErrorHandler> resolved = HANDLERS.get(owner);
+            ErrorHandler h = resolved.get(this);
+            if (h == null) {
+                h = resolved.computeIfAbsent(this, site -> ErrorHandler.resolve(owner, handlerName));
+                if (h != ErrorHandler.NONE) {
+                    handlerCounters = h.counters;
+                }
+            }
+            return h;
+        }
+
+        /** @return the counters of the handler if it resolved, else {@code null} */
+        ErrorHandler.Counters handlerCounters() {
+            return handlerCounters;
+        }
+    }
+
+    // handlers hold a MethodHandle into their class, so they live with it and not in the registry
+    private static final ClassValue<Map<CallSite, ErrorHandler>> HANDLERS = new ClassValue<>() {
+        @Override
+        protected Map<CallSite, ErrorHandler> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    // grown by doubling under the lock; count is published after the slot is written
+    private static volatile CallSite[] sites = new CallSite[16];
+    private static volatile int count;
+
+    private CallSites() {
+    }
+
+    /**
+     * @param className  binary or internal name of the declaring class
+     * @param methodName annotated method
+     * @param descriptor its JVM method descriptor
+     * @param log        its {@code @Log}, or {@code null}
+     * @param ifError    its {@code @IfError}, or {@code null}
+     * @return the new call site
+     */
+    public static synchronized CallSite register(String className, String methodName, String descriptor, Log log,
+            IfError ifError) {
+        return add(new CallSite(count, className.replace('/', '.'), methodName, descriptor, log, ifError));
+    }
+
+    /** @return a new call site for a {@link LogPolicy} scope */
+    static synchronized CallSite registerScope(String name, boolean logOk, boolean logError) {
+        return add(new CallSite(count, name, logOk, logError));
+    }
+
+    private static CallSite add(CallSite site) {
+        CallSite[] current = sites;
+        if (site.id == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[site.id] = site;
+        sites = current;
+        count = site.id + 1;
+        return site;
+    }
+
+    /** @return the call site registered under {@code id} */
+    public static CallSite get(int id) {
+        return sites[id];
+    }
+
+    /** @return number of registered call sites */
+    public static int count() {
+        return count;
+    }
+}
@@ -0,0 +1,119 @@
+package logic;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@code @IfError} handler resolved once into a {@link MethodHandle} of the
+ * uniform shape {@code (Object receiver, Object error) -> void}.
+ *
+ * <p>
+ * The handler is looked up by name in the class declaring the annotated
+ * method and may be
+ * </p>
+ * <ul>
+ * <li>static or instance,</li>
+ * <li>without parameters, or with a single parameter receiving the error
+ * (preferred when both exist).</li>
+ * </ul>
+ *
+ * <p>
+ * Instance handlers need the receiver of the annotated method, which only
+ * woven methods provide; on the stack-walk path they are skipped.
+ * </p>
+ *
+ * <p>
+ * A handler holds a {@link MethodHandle} into its class, so it is only kept
+ * with that class ({@link CallSites.CallSite#handler}); the global registry
+ * keeps just its {@link Counters}.
+ * </p>
+ */
+final class ErrorHandler {
+
+    /** Cached outcome for handlers that do not resolve. */
+    static final ErrorHandler NONE = new ErrorHandler(null, true, "", false);
+
+    /** What happened to the calls of one handler; refers to no class of the application. */
+    static final class Counters {
+        final LongAdder invocations = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder rejections = new LongAdder();
+    }
+
+    private static final MethodType SHAPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final MethodHandle handle;
+    private final boolean isStatic;
+    private final String qualifiedName;
+    private final boolean takesSummary;
+
+    final Counters counters = new Counters();
+
+    private ErrorHandler(MethodHandle handle, boolean isStatic, String qualifiedName, boolean takesSummary) {
+        this.handle = handle;
+        this.isStatic = isStatic;
+        this.qualifiedName = qualifiedName;
+        this.takesSummary = takesSummary;
+    }
+
+    static ErrorHandler resolve(Class<?> owner, String name) {
+        Method noArg = null;
+        Method withError = null;
+        for (Method m : owner.getDeclaredMethods()) {
+            if (!m.getName().equals(name) || m.isBridge()) {
+                continue;
+            }
+            if (m.getParameterCount() == 1 && withError == null) {
+                withError = m;
+            } else if (m.getParameterCount() == 0 && noArg == null) {
+                noArg = m;
+            }
+        }
+        Method target = withError != null ? withError : noArg;
+        if (target == null) {
+            return NONE;
+        }
+        try {
+            target.setAccessible(true);
+            MethodHandle mh = MethodHandles.lookup().unreflect(target);
+            boolean isStatic = Modifier.isStatic(target.getModifiers());
+            if (target.getParameterCount() == 0) {
+                // ignore the error argument
+                mh = MethodHandles.dropArguments(mh, mh.type().parameterCount(), Object.class);
+            }
+            if (isStatic) {
+                // ignore the receiver argument
+                mh = MethodHandles.dropArguments(mh, 0, Object.class);
+            }
+            boolean takesSummary = target.getParameterCount() == 1
+                    && target.getParameterTypes()[0].isAssignableFrom(ErrorSummary.class);
+            return new ErrorHandler(mh.asType(SHAPE), isStatic, owner.getName() + "." + name, takesSummary);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return NONE;
+        }
+    }
+
+    /** @return {@code Owner.name} */
+    String qualifiedName() {
+        return qualifiedName;
+    }
+
+    /** @return {@code true} if the parameter accepts an {@link ErrorSummary} */
+    boolean takesSummary() {
+        return takesSummary;
+    }
+
+    /** @return {@code false} if there is nothing that can be invoked with this receiver */
+    boolean invocable(Object receiver) {
+        return handle != null && (isStatic || receiver != null);
+    }
+
+    void invoke(Object receiver, Object error) throws Throwable {
+        handle.invokeExact(receiver, error);
+    }
+}
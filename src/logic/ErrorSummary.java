@@ -0,0 +1,14 @@
+package logic;
+
+/**
+ * What a coalescing {@code @IfError} handler receives instead of a single
+ * error: everything that failed at one call site during one window.
+ *
+ * @param count         number of {@code Err} results in the window
+ * @param first         error of the first one
+ * @param last          error of the last one seen before the window closed
+ * @param windowStart   epoch milliseconds of the first error
+ * @param windowMillis  configured window length
+ */
+public record ErrorSummary(long count, Object first, Object last, long windowStart, long windowMillis) {
+}
@@ -0,0 +1,46 @@
+package logic;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Errors of one call site collected during one coalescing window. Producers
+ * join by swapping in a new {@link State} with a CAS, so the count and the
+ * last error always change together; closing swaps in {@code CLOSED}, after
+ * which late producers open the next window instead.
+ */
+final class ErrorWindow {
+
+    private record State(long count, Object last) {
+    }
+
+    private static final State CLOSED = new State(-1, null);
+
+    final long start = System.currentTimeMillis();
+    final Object receiver;
+    final Object first;
+    private final AtomicReference<State> state;
+
+    ErrorWindow(Object receiver, Object first) {
+        this.receiver = receiver;
+        this.first = first;
+        this.state = new AtomicReference<>(new State(1, first));
+    }
+
+    /** @return {@code false} if the window is already closed */
+    boolean add(Object error) {
+        for (;;) {
+            State s = state.get();
+            if (s == CLOSED) {
+                return false;
+            }
+            if (state.compareAndSet(s, new State(s.count() + 1, error))) {
+                return true;
+            }
+        }
+    }
+
+    ErrorSummary close(long windowMillis) {
+        State s = state.getAndSet(CLOSED);
+        return new ErrorSummary(s.count(), first, s.last(), start, windowMillis);
+    }
+}
@@ -0,0 +1,235 @@
+package logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import logic.jfr.HandlerInvokedEvent;
+
+/**
+ * Runs {@code @IfError} handlers and keeps per-handler counters.
+ *
+ * <p>
+ * Synchronous handlers run on the calling thread. Handlers declared with
+ * {@code async = true} run on virtual threads; at most
+ * {@code result.handler.maxInFlight} (default 1024) may be pending or running
+ * at once, counting handlers that keep running after their timeout. When that
+ * limit is hit, {@code result.handler.rejection} decides what happens:
+ * {@code drop} (default) counts a rejection and skips the handler,
+ * {@code caller_runs} runs it on the calling thread instead.
+ * </p>
+ *
+ * <p>
+ * Handlers declared with {@code coalesceMillis} fire at most once per window
+ * and call site; see {@link #coalesce}.
+ * </p>
+ *
+ * <p>
+ * Failures are never propagated to the code that created the {@code Err}, but
+ * they are counted and visible through {@link #stats()}.
+ * </p>
+ */
+public final class HandlerExecutor {
+
+    public enum Rejection {
+        DROP, CALLER_RUNS
+    }
+
+    /** Counters of one {@code @IfError} handler. */
+    public record HandlerStats(String className, String methodName, String handler, long invocations,
+            long failures, long timeouts, long rejections) {
+    }
+
+    private static final int MAX_IN_FLIGHT = TraceConfig.intProperty("result.handler.maxInFlight", 1024);
+    private static final Rejection REJECTION = rejectionProperty();
+
+    private static final Semaphore PERMITS = new Semaphore(MAX_IN_FLIGHT);
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("result-handler-", 0).inheritInheritableThreadLocals(false).factory());
+    private static final ScheduledThreadPoolExecutor TIMER = timer();
+
+    private HandlerExecutor() {
+    }
+
+    /** Runs {@code handler} on the calling thread. */
+    static void run(ErrorHandler handler, Object receiver, Object error) {
+        invoke(handler, receiver, error, null);
+    }
+
+    /**
+     * @param task the async task running the handler, {@code null} on the
+     *             calling thread
+     */
+    private static void invoke(ErrorHandler handler, Object receiver, Object error, HandlerTask task) {
+        handler.counters.invocations.increment();
+        HandlerInvokedEvent event = new HandlerInvokedEvent();
+        event.begin();
+        try {
+            handler.invoke(receiver, error);
+        } catch (InterruptedException e) {
+            if (task == null || !task.isCancelled()) {
+                // not our timeout: a failure, and the interrupt still belongs to the thread
+                handler.counters.failures.increment();
+                event.failed = true;
+                Thread.currentThread().interrupt();
+            }
+            // else cancelled after its timeout, which the timer counted
+        } catch (Throwable t) {
+            handler.counters.failures.increment();
+            event.failed = true;
+        }
+        if (event.shouldCommit()) {
+            event.handler = handler.qualifiedName();
+            event.commit();
+        }
+    }
+
+    /** Hands {@code handler} to a virtual thread, subject to the in-flight limit. */
+    static void submit(ErrorHandler handler, Object receiver, Object error, long timeoutMillis) {
+        if (!PERMITS.tryAcquire()) {
+            reject(handler, receiver, error);
+            return;
+        }
+        HandlerTask task = new HandlerTask(handler, receiver, error);
+        try {
+            EXECUTOR.execute(task);
+        } catch (RejectedExecutionException e) {
+            PERMITS.release();
+            reject(handler, receiver, error);
+            return;
+        }
+        if (timeoutMillis > 0) {
+            ScheduledFuture<?> timeout = TIMER.schedule(() -> {
+                if (task.cancel(true)) {
+                    handler.counters.timeouts.increment();
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            task.timeout = timeout;
+            if (task.isDone()) {
+                // finished before the timeout was attached
+                timeout.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * An async handler invocation. The permit is held for as long as the
+     * handler actually runs, even past a timeout it ignores, and is returned
+     * by {@link #done()} only if the task was cancelled before it started.
+     * Finishing cancels the pending timeout so it does not stay queued.
+     */
+    private static final class HandlerTask extends FutureTask<Void> {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        volatile ScheduledFuture<?> timeout;
+
+        HandlerTask(ErrorHandler handler, Object receiver, Object error) {
+            this(handler, receiver, error, new AtomicReference<>());
+        }
+
+        // the invocation needs its task to tell a timeout from any other interrupt
+        private HandlerTask(ErrorHandler handler, Object receiver, Object error, AtomicReference<HandlerTask> self) {
+            super(() -> invoke(handler, receiver, error, self.get()), null);
+            self.set(this);
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return; // cancelled before it started
+            }
+            try {
+                super.run();
+            } finally {
+                PERMITS.release();
+            }
+        }
+
+        @Override
+        protected void done() {
+            ScheduledFuture<?> t = timeout;
+            if (t != null) {
+                t.cancel(false);
+            }
+            if (claimed.compareAndSet(false, true)) {
+                PERMITS.release();
+            }
+        }
+    }
+
+    /**
+     * Adds {@code error} to the call site's current window, opening one (and
+     * scheduling its flush) if there is none. The handler runs once per window,
+     * on a virtual thread.
+     */
+    static void coalesce(CallSites.CallSite site, ErrorHandler handler, Object receiver, Object error,
+            long windowMillis, long timeoutMillis) {
+        for (;;) {
+            ErrorWindow window = site.errorWindow.get();
+            if (window != null && window.add(error)) {
+                return;
+            }
+            if (window != null) {
+                // closed under us: the flush is about to clear it
+                site.errorWindow.compareAndSet(window, null);
+                continue;
+            }
+            ErrorWindow opened = new ErrorWindow(receiver, error);
+            if (site.errorWindow.compareAndSet(null, opened)) {
+                TIMER.schedule(() -> {
+                    site.errorWindow.compareAndSet(opened, null);
+                    ErrorSummary summary = opened.close(windowMillis);
+                    submit(handler, opened.receiver, handler.takesSummary() ? summary : summary.last(),
+                            timeoutMillis);
+                }, windowMillis, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+    }
+
+    private static void reject(ErrorHandler handler, Object receiver, Object error) {
+        handler.counters.rejections.increment();
+        if (REJECTION == Rejection.CALLER_RUNS) {
+            run(handler, receiver, error);
+        }
+    }
+
+    /** @return counters of every handler resolved so far */
+    public static List<HandlerStats> stats() {
+        List<HandlerStats> stats = new ArrayList<>();
+        for (int i = 0; i < CallSites.count(); i++) {
+            CallSites.CallSite site = CallSites.get(i);
+            ErrorHandler.Counters c = site.handlerCounters();
+            if (c != null) {
+                stats.add(new HandlerStats(site.className(), site.methodName(), site.handlerName,
+                        c.invocations.sum(), c.failures.sum(), c.timeouts.sum(), c.rejections.sum()));
+            }
+        }
+        return stats;
+    }
+
+    private static ScheduledThreadPoolExecutor timer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+                r -> LibraryThreads.unstarted("result-handler-timer", true, r));
+        // cancelled timeouts leave the queue at once instead of when they would have fired
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static Rejection rejectionProperty() {
+        String raw = System.getProperty("result.handler.rejection", "drop").trim();
+        try {
+            return Rejection.valueOf(raw.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Rejection.DROP;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package logic;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+/**
+ * Platform threads of the library: the async writer, the timers and the
+ * shutdown hook.
+ *
+ * <p>
+ * They are created on whatever application thread first needs them and live
+ * as long as the JVM. A new thread takes over its creator's context class
+ * loader, inheritable thread locals and access control context, and the
+ * latter holds the protection domain, and so the class loader, of every class
+ * on the creating stack. None of that is carried over here, so a library
+ * thread never keeps application classes from being unloaded.
+ * </p>
+ */
+final class LibraryThreads {
+
+    private LibraryThreads() {
+    }
+
+    /** @return a new, unstarted thread running {@code task} */
+    @SuppressWarnings("removal")
+    static Thread unstarted(String name, boolean daemon, Runnable task) {
+        // doPrivileged cuts the captured access control context off at this frame
+        Thread thread = AccessController.doPrivileged((PrivilegedAction<Thread>) () -> Thread.ofPlatform()
+                .daemon(daemon).name(name).inheritInheritableThreadLocals(false).unstarted(task));
+        thread.setContextClassLoader(LibraryThreads.class.getClassLoader());
+        return thread;
+    }
+}
@@ -0,0 +1,69 @@
+package logic;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What to log for results created inside a {@code Result.scope(...)} – the
+ * scope-wide counterpart of {@code @Log}.
+ *
+ * <p>
+ * Policies with the same name and flags share one call site (and its
+ * counters), so building a policy per request costs a map lookup, not a new
+ * registration. Names should therefore be stable labels, not request ids.
+ * </p>
+ */
+public final class LogPolicy {
+
+    private record Key(String name, boolean logOk, boolean logError) {
+    }
+
+    private static final ConcurrentHashMap<Key, CallSites.CallSite> SITES = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final boolean logOk;
+    private final boolean logError;
+    private final CallSites.CallSite site;
+
+    private LogPolicy(String name, boolean logOk, boolean logError) {
+        this.name = name;
+        this.logOk = logOk;
+        this.logError = logError;
+        this.site = SITES.computeIfAbsent(new Key(name, logOk, logError),
+                k -> CallSites.registerScope(k.name(), k.logOk(), k.logError()));
+    }
+
+    /**
+     * @param name     shown in place of the method name
+     * @param logOk    log {@code Ok} results
+     * @param logError log {@code Err} results
+     */
+    public static LogPolicy of(String name, boolean logOk, boolean logError) {
+        return new LogPolicy(name, logOk, logError);
+    }
+
+    /** Logs every result created in the scope. */
+    public static LogPolicy all(String name) {
+        return new LogPolicy(name, true, true);
+    }
+
+    /** Logs only {@code Err} results created in the scope. */
+    public static LogPolicy errorsOnly(String name) {
+        return new LogPolicy(name, false, true);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean logOk() {
+        return logOk;
+    }
+
+    public boolean logError() {
+        return logError;
+    }
+
+    CallSites.CallSite site() {
+        return site;
+    }
+}
@@ -0,0 +1,74 @@
+package logic;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Attribution by context instead of by stack walk.
+ *
+ * <p>
+ * A {@link LogPolicy} is bound to the current thread for the duration of a
+ * body; every {@code Result} created meanwhile is attributed to it with a
+ * single thread-local read. The binding is inheritable, so threads (including
+ * virtual threads) started inside the scope see it too; pooled threads that
+ * already exist do not.
+ * </p>
+ *
+ * <p>
+ * Inheritance is by thread creation, not by task: a pool that starts a worker
+ * lazily while a scope is open hands that scope to the worker for good, and
+ * every later result on it is attributed to the old policy. Create long-lived
+ * pools outside any scope, or with threads that do not inherit
+ * ({@link Thread.Builder#inheritInheritableThreadLocals(boolean)}), as the
+ * library's own handler, timer and writer threads do.
+ * </p>
+ *
+ * <p>
+ * {@code ScopedValue} would be the natural carrier but is still a preview API
+ * on the supported JDK, so an {@link InheritableThreadLocal} with strict
+ * save/restore stands in for it.
+ * </p>
+ */
+public final class LogScope {
+
+    private static final InheritableThreadLocal<LogPolicy> CURRENT = new InheritableThreadLocal<>();
+
+    // set before the first binding; a thread that binds a scope always sees its own write
+    private static boolean used;
+
+    private LogScope() {
+    }
+
+    /** Runs {@code body} with {@code policy} bound, restoring the outer scope afterwards. */
+    public static <R> R run(LogPolicy policy, Callable<R> body) throws Exception {
+        used = true;
+        LogPolicy outer = CURRENT.get();
+        CURRENT.set(policy);
+        try {
+            return body.call();
+        } finally {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    /** @return {@code true} once any scope was opened; cheap guard for the hot path */
+    public static boolean inUse() {
+        return used;
+    }
+
+    /** @return the policy bound to this thread, or {@code null} */
+    static LogPolicy current() {
+        return used ? CURRENT.get() : null;
+    }
+
+    /**
+     * Attributes a result created inside {@code policy}'s scope, through the
+     * same counters, listeners and rate limit as an annotated method.
+     */
+    static void record(LogPolicy policy, Variant variant, Object payload) {
+        AnnotationLogic.dispatch(null, null, policy.site(), -1, variant, payload);
+    }
+}
@@ -0,0 +1,21 @@
+package logic;
+
+/**
+ * Destination of the events {@link LoggerLogic} decided to write.
+ *
+ * <p>
+ * Selected once at startup with {@code result.log.sink}:
+ * {@code stdout} (default, synchronous), {@code async} ({@link AsyncSink}) or
+ * {@code mapped} ({@link MappedSink}).
+ * </p>
+ */
+public interface LogSink {
+    void write(ResultEvent event);
+
+    /** Writes a line that is not about a single result, e.g. a suppression summary. */
+    void note(String line);
+
+    /** Writes out whatever is still buffered. Called once, at shutdown, after the last note. */
+    default void flush() {
+    }
+}
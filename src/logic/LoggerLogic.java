@@ -1,18 +1,121 @@
 package logic;
 
-import java.lang.StackWalker.StackFrame;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-import annotations.Log;
+public class LoggerLogic {
+    private static final LogSink SINK = createSink();
 
+    private static final int MAX_PER_SECOND = TraceConfig.intProperty("result.log.maxPerSecond", 0);
 
-public class LoggerLogic {
-    public static void print(Log log, StackFrame frame, String value) {
-        if (log.logError() && value.startsWith("Err")) {
-            System.out.printf("[%d] %s() -> %s \n", frame.getLineNumber(), frame.getMethodName(),
-                    value.toString());
-        } else if (log.logOk() && value.startsWith("Ok")) {
-            System.out.printf("[%d] %s() -> %s \n", frame.getLineNumber(), frame.getMethodName(),
-                    value.toString());
+    static {
+        // one hook, so the last summaries are written before the sink is flushed
+        Runtime.getRuntime().addShutdownHook(LibraryThreads.unstarted("result-log-flush", false, () -> {
+            reportSuppressed();
+            SINK.flush();
+        }));
+    }
+
+    /** @return {@code true} if {@code site} lets results of {@code variant} through */
+    static boolean accepts(CallSites.CallSite site, Variant variant) {
+        return variant == Variant.ERR ? site.logError : site.logOk;
+    }
+
+    /**
+     * Applies {@link annotations.Log#everyN()} to {@code Ok} results. Only a striped counter
+     * is touched; nothing is built for a result that is sampled out.
+     *
+     * @return {@code true} if this result should be logged
+     */
+    static boolean sampled(CallSites.CallSite site, Variant variant) {
+        int everyN = site.everyN;
+        if (variant == Variant.ERR || everyN < 2) {
+            return true;
+        }
+        return (site.okSamples().incrementStripe() - 1) % everyN == 0;
+    }
+
+    /**
+     * Applies {@link annotations.Log#maxPerSecond()} (or {@code result.log.maxPerSecond})
+     * with a lock-free token bucket per call site. Refused events are only
+     * counted; a background task writes one "suppressed N similar events"
+     * line per site and second while there are any, so the summary never
+     * adds to the volume of a storm and the tail of a storm is still reported.
+     *
+     * @return {@code true} if this result should be logged
+     */
+    static boolean admitted(CallSites.CallSite site) {
+        int perSecond = site.maxPerSecond > 0 ? site.maxPerSecond : MAX_PER_SECOND;
+        if (perSecond <= 0) {
+            return true;
+        }
+        SuppressionReporter.start();
+        return site.limiter(perSecond).tryAcquire();
+    }
+
+    /** Writes the pending "suppressed" summary of every rate-limited site. */
+    static void reportSuppressed() {
+        for (int i = 0; i < CallSites.count(); i++) {
+            CallSites.CallSite site = CallSites.get(i);
+            RateLimiter limiter = site.resolvedLimiter();
+            long suppressed = limiter == null ? 0 : limiter.takeSuppressed();
+            if (suppressed > 0) {
+                SINK.note(String.format("[rate-limit] %s() suppressed %d similar events \n", site.methodName(),
+                        suppressed));
+            }
+        }
+    }
+
+    /** Started with the first rate-limited site; class initialisation makes it happen once. */
+    private static final class SuppressionReporter {
+        private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+                r -> LibraryThreads.unstarted("result-rate-limit", true, r));
+
+        static {
+            TIMER.scheduleAtFixedRate(LoggerLogic::reportSuppressed, 1, 1, TimeUnit.SECONDS);
+        }
+
+        static void start() {
+        }
+    }
+
+    /**
+     * The built-in {@link ResultListeners#LOGGER}: applies the call site's
+     * {@code @Log} flags (or scope policy), sampling and rate limit, then
+     * writes what is left to the sink.
+     */
+    static void log(ResultEvent event) {
+        CallSites.CallSite site = CallSites.get(event.callSite());
+        if (accepts(site, event.variant()) && sampled(site, event.variant()) && admitted(site)) {
+            SINK.write(event);
+        }
+    }
+
+    /** @return the printed line for {@code event}, including the line break */
+    public static String format(ResultEvent event) {
+        int line = event.line();
+        return String.format("[%s] %s() -> %s \n", line < 0 ? "?" : line, event.methodName(), event.render());
+    }
+
+    /**
+     * A sink that cannot be set up (unwritable file, ring too large) must not
+     * fail class initialisation: that would surface as an {@code Error} from
+     * every later {@code Result.ok}/{@code Result.err}. It is reported once on
+     * {@code System.err} and logging falls back to {@code stdout}.
+     */
+    private static LogSink createSink() {
+        String sink = System.getProperty("result.log.sink", "stdout").trim();
+        try {
+            if ("async".equalsIgnoreCase(sink)) {
+                return new AsyncSink();
+            }
+            if ("mapped".equalsIgnoreCase(sink)) {
+                return new MappedSink();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[result-log] cannot use the " + sink + " sink, logging to stdout: " + e.getMessage());
         }
+        return new StdoutSink();
     }
 }
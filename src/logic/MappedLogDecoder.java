@@ -0,0 +1,74 @@
+package logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Prints the content of a {@link MappedSink} file as text, oldest event
+ * first.
+ *
+ * <pre>{@code
+ * java -cp target logic.MappedLogDecoder result-log.bin
+ * }</pre>
+ */
+public final class MappedLogDecoder {
+
+    private record Slot(long sequence, String text) {
+    }
+
+    private MappedLogDecoder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args.length > 0 ? args[0] : "result-log.bin");
+        for (String line : decode(file)) {
+            System.out.println(line);
+        }
+    }
+
+    /** @return one line per event, ordered by sequence */
+    public static List<String> decode(Path file) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buf.capacity() < MappedSink.HEADER_SIZE || buf.getInt(0) != MappedSink.MAGIC) {
+            throw new IOException(file + " is not a result log");
+        }
+        if (buf.getInt(4) != MappedSink.VERSION) {
+            throw new IOException("unsupported result log version " + buf.getInt(4));
+        }
+        int slotSize = buf.getInt(8);
+        int slotCount = buf.getInt(12);
+
+        List<Slot> slots = new ArrayList<>();
+        for (int i = 0; i < slotCount; i++) {
+            int offset = MappedSink.HEADER_SIZE + i * slotSize;
+            long seq = buf.getLong(offset);
+            if (seq <= 0) {
+                continue;
+            }
+            long timestamp = buf.getLong(offset + 8);
+            int line = buf.getInt(offset + 20);
+            byte kind = buf.get(offset + 24);
+            int methodLen = buf.get(offset + 25) & 0xFF;
+            int payloadLen = buf.getShort(offset + 26) & 0xFFFF;
+            int base = offset + MappedSink.SLOT_HEADER_SIZE;
+            String method = new String(buf.array(), base, methodLen, StandardCharsets.UTF_8);
+            String payload = new String(buf.array(), base + methodLen, payloadLen, StandardCharsets.UTF_8);
+            if (kind == MappedSink.KIND_NOTE) {
+                slots.add(new Slot(seq, Instant.ofEpochMilli(timestamp) + " " + payload));
+                continue;
+            }
+            Variant variant = kind == 0 ? Variant.OK : Variant.ERR;
+            slots.add(new Slot(seq, Instant.ofEpochMilli(timestamp) + " [" + (line < 0 ? "?" : line) + "] "
+                    + method + "() -> " + variant.render(payload)));
+        }
+        slots.sort(Comparator.comparingLong(Slot::sequence));
+        return slots.stream().map(Slot::text).toList();
+    }
+}
@@ -0,0 +1,173 @@
+package logic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Binary sink writing events into a pre-allocated, memory-mapped ring file.
+ *
+ * <p>
+ * Nothing is formatted on the caller thread: an event is copied into a
+ * fixed-size slot and the operating system owns the pages, so everything
+ * written survives a crash of the process. {@link MappedLogDecoder} turns the
+ * file back into text.
+ * </p>
+ *
+ * <p>
+ * Configuration: {@code result.log.mapped.file} (default
+ * {@code result-log.bin}), {@code result.log.mapped.slots} (default 65536) and
+ * {@code result.log.mapped.slotSize} in bytes (default 256, multiple of 8, at
+ * most {@value #MAX_SLOT_SIZE} so the payload length fits its 16-bit field).
+ * The whole file must fit a single mapping of at most 2 GiB.
+ * </p>
+ *
+ * <p>
+ * A writer claims its slot by swapping the slot's sequence for
+ * {@code WRITING} (-1) with a CAS, fills it, and publishes the new sequence
+ * with a release store. A writer that laps the ring while the previous owner
+ * of the slot is still writing waits for it; one that finds a newer record
+ * already there drops its own, which the ring was about to overwrite anyway.
+ * Readers treat anything but a positive sequence as an empty slot.
+ * </p>
+ *
+ * <pre>
+ * header (64 bytes): int magic, int version, int slotSize, int slotCount
+ * slot:  long  sequence   (0 = empty, -1 = being written, published last)
+ *        long  timestamp  (epoch millis)
+ *        int   callSite
+ *        int   line
+ *        byte  kind       (0 = Ok, 1 = Err, 2 = note; method empty, payload is the text)
+ *        byte  method length
+ *        short payload length
+ *        UTF-8 method name, UTF-8 payload (both truncated to fit the slot)
+ * </pre>
+ */
+public final class MappedSink implements LogSink {
+
+    static final int MAGIC = 0x52534C54; // "RSLT"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int SLOT_HEADER_SIZE = 28;
+    static final int MAX_SLOT_SIZE = (SLOT_HEADER_SIZE + 0xFFFF) & ~7;
+    static final byte KIND_NOTE = 2;
+
+    private static final long WRITING = -1L;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final MappedByteBuffer map;
+    private final int slotSize;
+    private final int slotCount;
+    private final AtomicLong sequence;
+
+    MappedSink() {
+        this(Path.of(System.getProperty("result.log.mapped.file", "result-log.bin")),
+                TraceConfig.intProperty("result.log.mapped.slots", 65536),
+                TraceConfig.intProperty("result.log.mapped.slotSize", 256));
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code slotCount} is not positive or
+     *                                  the ring does not fit one mapping
+     * @throws UncheckedIOException     if {@code file} cannot be mapped
+     */
+    public MappedSink(Path file, int slotCount, int slotSize) {
+        this.slotSize = Math.min(MAX_SLOT_SIZE, Math.max(SLOT_HEADER_SIZE + 8, (slotSize + 7) & ~7));
+        this.slotCount = slotCount;
+        long size = HEADER_SIZE + (long) this.slotSize * slotCount;
+        if (slotCount <= 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "cannot map " + slotCount + " slots of " + this.slotSize + " bytes into one file");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            boolean reuse = channel.size() == size;
+            this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            reuse = reuse && map.getInt(0) == MAGIC && map.getInt(4) == VERSION
+                    && map.getInt(8) == this.slotSize && map.getInt(12) == slotCount;
+            if (!reuse) {
+                for (int i = 0; i < slotCount; i++) {
+                    map.putLong(slotOffset(i), 0L);
+                }
+                map.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, this.slotSize).putInt(12, slotCount);
+            }
+            this.sequence = new AtomicLong(reuse ? lastSequence() : 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot map " + file, e);
+        }
+    }
+
+    @Override
+    public void write(ResultEvent event) {
+        writeSlot(event.timestamp(), event.callSite(), event.line(), (byte) event.variant().ordinal(),
+                event.methodName(), String.valueOf(event.payload()));
+    }
+
+    @Override
+    public void note(String line) {
+        writeSlot(System.currentTimeMillis(), -1, -1, KIND_NOTE, "", line.strip());
+    }
+
+    private void writeSlot(long timestamp, int callSite, int line, byte kind, String methodName, String text) {
+        long seq = sequence.incrementAndGet();
+        int offset = slotOffset((int) ((seq - 1) % slotCount));
+
+        // claim the slot; the CAS orders it before every write below
+        for (;;) {
+            long current = (long) LONGS.getVolatile(map, offset);
+            if (current >= seq) {
+                return; // lapped by a newer record
+            }
+            if (current == WRITING) {
+                Thread.onSpinWait();
+            } else if (LONGS.compareAndSet(map, offset, current, WRITING)) {
+                break;
+            }
+        }
+        byte[] method = methodName.getBytes(StandardCharsets.UTF_8);
+        int methodLen = Math.min(method.length, Math.min(255, slotSize - SLOT_HEADER_SIZE));
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        int payloadLen = Math.min(payload.length, slotSize - SLOT_HEADER_SIZE - methodLen);
+
+        map.putLong(offset + 8, timestamp);
+        map.putInt(offset + 16, callSite);
+        map.putInt(offset + 20, line);
+        map.put(offset + 24, kind);
+        map.put(offset + 25, (byte) methodLen);
+        map.putShort(offset + 26, (short) payloadLen);
+        map.put(offset + SLOT_HEADER_SIZE, method, 0, methodLen);
+        map.put(offset + SLOT_HEADER_SIZE + methodLen, payload, 0, payloadLen);
+        LONGS.setRelease(map, offset, seq);
+    }
+
+    @Override
+    public void flush() {
+        map.force();
+    }
+
+    private int slotOffset(int slot) {
+        return HEADER_SIZE + slot * slotSize;
+    }
+
+    /** Also clears slots a crashed writer left claimed. */
+    private long lastSequence() {
+        long max = 0;
+        for (int i = 0; i < slotCount; i++) {
+            long seq = map.getLong(slotOffset(i));
+            if (seq < 0) {
+                map.putLong(slotOffset(i), 0L);
+            }
+            max = Math.max(max, seq);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,128 @@
+package logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Where an {@code Err} was created, recorded on request with
+ * {@code result.err.provenance=N}.
+ *
+ * <p>
+ * At creation the top {@code N} frames below the {@code Result} factories are
+ * captured as interned frame ids: each distinct frame is turned into a
+ * {@link StackTraceElement} once, and an {@code Err} only keeps a small
+ * {@code int[]}. Records cannot carry extra state, so the ids live in a weak
+ * identity side table and go away with the {@code Err}. Nothing is rendered
+ * until {@link #of} is asked for.
+ * </p>
+ *
+ * <p>
+ * Frame ids are looked up per declaring {@link Class} through a
+ * {@link ClassValue}, so equally named classes of different loaders get their
+ * own ids and the lookup does not keep a loader alive. The rendered frames are
+ * appended to fixed-size chunks: registering a frame never copies the ones
+ * before it.
+ * </p>
+ *
+ * <p>
+ * With the property unset (the default) {@link #ENABLED} is a
+ * {@code static final} {@code false} and creation is unaffected.
+ * </p>
+ */
+public final class Provenance {
+
+    public static final int DEPTH = TraceConfig.intProperty("result.err.provenance", 0);
+
+    public static final boolean ENABLED = DEPTH > 0;
+
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /** Identifies a frame of one class without rendering it: same method (overloads apart), same bytecode index. */
+    private record FrameKey(String methodName, String descriptor, int bci) {
+    }
+
+    private static final ClassValue<ConcurrentMap<FrameKey, Integer>> FRAME_IDS = new ClassValue<>() {
+        @Override
+        protected ConcurrentMap<FrameKey, Integer> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    // frame id -> element, in chunks of CHUNK_SIZE; only the outer array is ever copied
+    private static volatile StackTraceElement[][] chunks = new StackTraceElement[0][];
+    private static int registered;
+
+    private static final WeakIdentityTable<int[]> CAPTURED = new WeakIdentityTable<>();
+
+    private Provenance() {
+    }
+
+    /**
+     * Records the creation site of {@code err}. Called from the {@code Err}
+     * constructor when {@link #ENABLED}.
+     */
+    public static void capture(Object err) {
+        int[] ids = WALKER.walk(s -> s
+                .dropWhile(Provenance::internal)
+                .limit(DEPTH)
+                .mapToInt(Provenance::intern)
+                .toArray());
+        CAPTURED.put(err, ids);
+    }
+
+    /**
+     * @param err an {@code Err}
+     * @return the frames recorded when {@code err} was created, innermost
+     *         first; empty if provenance was not captured
+     */
+    public static List<StackTraceElement> of(Object err) {
+        int[] ids = CAPTURED.get(err);
+        if (ids == null) {
+            return List.of();
+        }
+        StackTraceElement[][] known = chunks;
+        List<StackTraceElement> trace = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            trace.add(known[id >>> CHUNK_BITS][id & (CHUNK_SIZE - 1)]);
+        }
+        return List.copyOf(trace);
+    }
+
+    private static boolean internal(StackWalker.StackFrame frame) {
+        String name = frame.getClassName();
+        return name.equals("Result") || name.startsWith("Result$") || name.equals(Provenance.class.getName());
+    }
+
+    private static int intern(StackWalker.StackFrame frame) {
+        ConcurrentMap<FrameKey, Integer> ids = FRAME_IDS.get(frame.getDeclaringClass());
+        FrameKey key = new FrameKey(frame.getMethodName(), frame.getDescriptor(), frame.getByteCodeIndex());
+        Integer id = ids.get(key);
+        return id != null ? id : register(ids, key, frame.toStackTraceElement());
+    }
+
+    private static synchronized int register(ConcurrentMap<FrameKey, Integer> ids, FrameKey key,
+            StackTraceElement element) {
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        int next = registered;
+        StackTraceElement[][] current = chunks;
+        if ((next & (CHUNK_SIZE - 1)) == 0) {
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = new StackTraceElement[CHUNK_SIZE];
+        }
+        current[next >>> CHUNK_BITS][next & (CHUNK_SIZE - 1)] = element;
+        // publish the element before its id: readers reach it only through ids
+        chunks = current;
+        registered = next + 1;
+        ids.put(key, next);
+        return next;
+    }
+}
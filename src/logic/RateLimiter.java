@@ -0,0 +1,52 @@
+package logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token bucket (GCRA form): a single {@link AtomicLong} holds the
+ * theoretical arrival time of the next event. Up to one second worth of
+ * events may burst; beyond that events are refused and counted.
+ */
+final class RateLimiter {
+
+    private static final long TOLERANCE_NANOS = 1_000_000_000L;
+
+    private final long intervalNanos;
+    private final AtomicLong theoretical = new AtomicLong(System.nanoTime());
+    private final LongAdder suppressed = new LongAdder();
+    private final AtomicLong reported = new AtomicLong();
+
+    RateLimiter(int perSecond) {
+        this.intervalNanos = Math.max(1, TOLERANCE_NANOS / perSecond);
+    }
+
+    /** @return {@code true} if one more event may pass now */
+    boolean tryAcquire() {
+        long now = System.nanoTime();
+        for (;;) {
+            long tat = theoretical.get();
+            long next = Math.max(tat, now) + intervalNanos;
+            if (next - now > TOLERANCE_NANOS) {
+                suppressed.increment();
+                return false;
+            }
+            if (theoretical.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /** @return events refused since the previous call, counted once each */
+    long takeSuppressed() {
+        long total = suppressed.sum();
+        long previous = reported.get();
+        while (total > previous) {
+            if (reported.compareAndSet(previous, total)) {
+                return total - previous;
+            }
+            previous = reported.get();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,62 @@
+package logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ok/Err counts per {@code @Log} method, for exporters to scrape.
+ *
+ * <p>
+ * Every result attributed to a {@code @Log} method is counted, whether or not
+ * it is logged. Counters are {@link LongAdder}s, so
+ * many cores hitting the same method do not contend on one cache line. With
+ * {@code result.counters.byErrorClass=true} errors are also counted per error
+ * class. {@code result.counters=false} turns counting off.
+ * </p>
+ */
+public final class ResultCounters {
+
+    /** Counts of one method at the time of the snapshot. */
+    public record MethodCounts(String className, String methodName, String descriptor, long ok, long err,
+            Map<String, Long> errByClass) {
+    }
+
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("result.counters"));
+    static final boolean BY_ERROR_CLASS = Boolean.getBoolean("result.counters.byErrorClass");
+
+    private ResultCounters() {
+    }
+
+    static void count(CallSites.CallSite site, Variant variant, Object payload) {
+        if (variant == Variant.OK) {
+            site.okCount.increment();
+        } else {
+            site.errCount.increment();
+            if (BY_ERROR_CLASS) {
+                site.errByClass.computeIfAbsent(payload.getClass().getName(), c -> new LongAdder())
+                        .increment();
+            }
+        }
+    }
+
+    /** @return counts of every method that produced at least one result */
+    public static List<MethodCounts> snapshot() {
+        List<MethodCounts> counts = new ArrayList<>();
+        for (int i = 0; i < CallSites.count(); i++) {
+            CallSites.CallSite site = CallSites.get(i);
+            long ok = site.okCount.sum();
+            long err = site.errCount.sum();
+            if (ok == 0 && err == 0) {
+                continue;
+            }
+            Map<String, Long> byClass = new TreeMap<>();
+            site.errByClass.forEach((type, adder) -> byClass.put(type, adder.sum()));
+            counts.add(new MethodCounts(site.className(), site.methodName(), site.descriptor(), ok, err,
+                    Map.copyOf(byClass)));
+        }
+        return counts;
+    }
+}
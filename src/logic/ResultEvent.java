@@ -0,0 +1,42 @@
+package logic;
+
+/**
+ * One attributed {@code Result}, as seen by the logging path.
+ *
+ * <p>
+ * Built for every attributed result unless only the built-in logger is
+ * listening and the call site's flags reject the variant. Exactly one of {@code value} / {@code error} is
+ * set, matching {@code variant}.
+ * </p>
+ *
+ * @param variant    {@code OK} or {@code ERR}
+ * @param value      success value, {@code null} for {@code ERR}
+ * @param error      error value, {@code null} for {@code OK}
+ * @param callSite   id from {@link CallSites}
+ * @param methodName annotated method
+ * @param line       source line, negative when unknown
+ * @param timestamp  creation time in epoch milliseconds
+ */
+public record ResultEvent(Variant variant, Object value, Object error, int callSite, String methodName, int line,
+        long timestamp) {
+
+    public static ResultEvent of(Variant variant, Object payload, int callSite, String methodName, int line) {
+        return variant == Variant.OK
+                ? new ResultEvent(variant, payload, null, callSite, methodName, line, System.currentTimeMillis())
+                : new ResultEvent(variant, null, payload, callSite, methodName, line, System.currentTimeMillis());
+    }
+
+    public boolean isErr() {
+        return variant == Variant.ERR;
+    }
+
+    /** @return {@code value} or {@code error}, whichever is set */
+    public Object payload() {
+        return variant == Variant.OK ? value : error;
+    }
+
+    /** @return {@code Ok(value)} / {@code Err(error)}; rendered on every call */
+    public String render() {
+        return variant.render(payload());
+    }
+}
@@ -0,0 +1,20 @@
+package logic;
+
+/**
+ * Consumer of attributed results – the extension point for metrics, tracing
+ * or additional log sinks.
+ *
+ * <p>
+ * Register programmatically with {@link ResultListeners#register} or through
+ * {@link java.util.ServiceLoader} by listing the implementation in
+ * {@code META-INF/services/logic.ResultListener}. Listeners receive every
+ * attributed result, before any {@code @Log} flag, sampling or rate limit:
+ * those belong to the built-in {@link ResultListeners#LOGGER}, which is just
+ * another listener. Events arrive on the thread that created the
+ * {@code Result}, so listeners should return quickly.
+ * </p>
+ */
+@FunctionalInterface
+public interface ResultListener {
+    void onResult(ResultEvent event);
+}
@@ -0,0 +1,74 @@
+package logic;
+
+import java.util.Arrays;
+import java.util.ServiceLoader;
+
+/**
+ * Copy-on-write set of {@link ResultListener}s.
+ *
+ * <p>
+ * Publishing reads one volatile array and loops over it; registration copies
+ * the array under a lock. The built-in {@link #LOGGER} is registered first and
+ * can be removed like any other listener. Listeners found via
+ * {@link ServiceLoader} are added when this class initialises.
+ * </p>
+ */
+public final class ResultListeners {
+
+    /** Writes events to the configured {@link LogSink}. */
+    public static final ResultListener LOGGER = LoggerLogic::log;
+
+    private static volatile ResultListener[] listeners = { LOGGER };
+
+    static {
+        for (ResultListener listener : ServiceLoader.load(ResultListener.class)) {
+            register(listener);
+        }
+    }
+
+    private ResultListeners() {
+    }
+
+    public static synchronized void register(ResultListener listener) {
+        ResultListener[] current = listeners;
+        ResultListener[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = listener;
+        listeners = grown;
+    }
+
+    /** @return {@code true} if {@code listener} was registered */
+    public static synchronized boolean unregister(ResultListener listener) {
+        ResultListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                ResultListener[] shrunk = new ResultListener[current.length - 1];
+                System.arraycopy(current, 0, shrunk, 0, i);
+                System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                listeners = shrunk;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code false} if no listener can use a result of {@code variant}
+     *         from {@code site}: only {@link #LOGGER} is registered and the
+     *         site's flags reject the variant, so no event is built
+     */
+    static boolean wants(CallSites.CallSite site, Variant variant) {
+        ResultListener[] current = listeners;
+        return current.length > 1
+                || current.length == 1 && (current[0] != LOGGER || LoggerLogic.accepts(site, variant));
+    }
+
+    /** Delivers {@code event} to every listener; a failing listener does not stop the others. */
+    static void publish(ResultEvent event) {
+        for (ResultListener listener : listeners) {
+            try {
+                listener.onResult(event);
+            } catch (RuntimeException ignored) {
+            }
+        }
+    }
+}
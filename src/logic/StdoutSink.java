@@ -0,0 +1,14 @@
+package logic;
+
+/** Writes each event synchronously to {@code System.out} on the caller thread. */
+final class StdoutSink implements LogSink {
+    @Override
+    public void write(ResultEvent event) {
+        System.out.print(LoggerLogic.format(event));
+    }
+
+    @Override
+    public void note(String line) {
+        System.out.print(line);
+    }
+}
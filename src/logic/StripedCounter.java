@@ -0,0 +1,34 @@
+package logic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter split over cache-line padded stripes selected by thread id, so
+ * concurrent increments from different threads rarely touch the same line.
+ * Each stripe counts on its own; callers that only need "every N-th" per
+ * thread never have to sum them.
+ */
+final class StripedCounter {
+
+    private static final int PAD = 8; // longs per 64-byte line
+    private static final int STRIPES = Integer.highestOneBit(
+            Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) << 1;
+    private static final int MASK = STRIPES - 1;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+    /** @return the new value of the calling thread's stripe */
+    long incrementStripe() {
+        int stripe = (int) (Thread.currentThread().threadId() & MASK);
+        return cells.incrementAndGet(stripe * PAD);
+    }
+
+    /** @return the sum over all stripes (not atomic) */
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PAD);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,54 @@
+package logic;
+
+import java.util.Arrays;
+
+/**
+ * Tuning knobs for call-site attribution, read once from system properties at
+ * class initialisation.
+ *
+ * <ul>
+ * <li>{@code result.walk.maxDepth} – maximum number of caller frames
+ * inspected per {@code Result}, not counting the library's own frames on top
+ * of the stack (default: unlimited)</li>
+ * <li>{@code result.walk.stopAtFirst} – stop at the first annotated frame
+ * instead of visiting every annotated caller (default: {@code false})</li>
+ * <li>{@code result.walk.boundary} – comma separated class/package prefixes;
+ * the walk stops at the first frame whose class name starts with one of them
+ * (default: none)</li>
+ * </ul>
+ */
+public final class TraceConfig {
+
+    public static final int MAX_DEPTH = intProperty("result.walk.maxDepth", Integer.MAX_VALUE);
+
+    public static final boolean STOP_AT_FIRST = Boolean.getBoolean("result.walk.stopAtFirst");
+
+    public static final String[] BOUNDARIES = listProperty("result.walk.boundary");
+
+    private TraceConfig() {
+    }
+
+    static int intProperty(String key, int defaultValue) {
+        String raw = System.getProperty(key);
+        if (raw == null || raw.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(raw.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    static String[] listProperty(String key) {
+        String raw = System.getProperty(key);
+        if (raw == null || raw.isBlank()) {
+            return new String[0];
+        }
+        return Arrays.stream(raw.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toArray(String[]::new);
+    }
+}
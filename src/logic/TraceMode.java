@@ -0,0 +1,31 @@
+package logic;
+
+/**
+ * Global switch for call-site attribution, set with {@code result.trace}.
+ */
+public enum TraceMode {
+    /** Attribute every {@code Ok} and {@code Err} (default). */
+    FULL,
+    /**
+     * Attribute only {@code Err}: building an {@code Ok} is a bare allocation,
+     * so {@code @Log(logOk = true)} stays silent while {@code @IfError} and
+     * error logging keep working.
+     */
+    ERRORS,
+    /** Never attribute: construction is a bare allocation. */
+    OFF;
+
+    /** @return {@code true} if results of {@code variant} are attributed in this mode */
+    public boolean attributes(Variant variant) {
+        return this == FULL || this == ERRORS && variant == Variant.ERR;
+    }
+
+    static TraceMode fromProperty() {
+        String raw = System.getProperty("result.trace", "full").trim();
+        try {
+            return valueOf(raw.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return FULL;
+        }
+    }
+}
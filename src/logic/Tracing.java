@@ -0,0 +1,78 @@
+package logic;
+
+/**
+ * Decides, per construction, whether a {@code Result} is attributed at all.
+ *
+ * <p>
+ * The checks are ordered from cheapest to most expensive: the
+ * {@code static final} {@link #MODE} and {@link AnnotationIndex#ENABLED} fold
+ * away in compiled code, {@link LogScope#inUse()} is a plain field read, and
+ * only then is the thread-local untraced flag consulted.
+ * </p>
+ *
+ * <p>
+ * Woven methods report the {@code Result} they return after it was built, when
+ * the flag has already been reset. Under the agent the same thread-local
+ * therefore keeps the last untraced result of the thread
+ * ({@link #markUntraced}), and {@link WeaveHooks} skips a result that is it.
+ * </p>
+ */
+public final class Tracing {
+
+    public static final TraceMode MODE = TraceMode.fromProperty();
+
+    // TRUE while suspended; under the agent, otherwise the last untraced result
+    private static final ThreadLocal<Object> UNTRACED = new ThreadLocal<>();
+
+    private static final boolean WOVEN = Boolean.getBoolean("result.agent");
+
+    private Tracing() {
+    }
+
+    /** @return {@code true} if a result of {@code variant} built now must be attributed */
+    public static boolean traced(Variant variant) {
+        return MODE.attributes(variant)
+                && (AnnotationIndex.ENABLED || LogScope.inUse())
+                && UNTRACED.get() != Boolean.TRUE;
+    }
+
+    /**
+     * Stops attribution on this thread until {@link #resume(boolean)}. When
+     * nothing would be attributed anyway the thread-local is not touched.
+     *
+     * @return the token to hand to {@link #resume(boolean)}
+     */
+    public static boolean suspend() {
+        if (MODE == TraceMode.OFF || !(AnnotationIndex.ENABLED || LogScope.inUse())) {
+            return false;
+        }
+        UNTRACED.set(Boolean.TRUE);
+        return true;
+    }
+
+    /** @param suspended the value returned by the matching {@link #suspend()} */
+    public static void resume(boolean suspended) {
+        if (suspended) {
+            UNTRACED.set(Boolean.FALSE);
+        }
+    }
+
+    /**
+     * Remembers {@code result} as this thread's last untraced result, so a
+     * woven method returning it stays silent; a no-op without the agent. Call
+     * after {@link #resume(boolean)}.
+     *
+     * @return {@code result}
+     */
+    public static <R> R markUntraced(R result) {
+        if (WOVEN) {
+            UNTRACED.set(result);
+        }
+        return result;
+    }
+
+    /** @return {@code true} if {@code result} is the last untraced result built on this thread */
+    static boolean isUntraced(Object result) {
+        return WOVEN && UNTRACED.get() == result;
+    }
+}
@@ -0,0 +1,25 @@
+package logic;
+
+/**
+ * Which side of a {@code Result} an event describes.
+ *
+ * <p>
+ * Passed around together with the bare payload reference so nothing is
+ * rendered until a sink actually writes it.
+ * </p>
+ */
+public enum Variant {
+    OK("Ok"),
+    ERR("Err");
+
+    private final String label;
+
+    Variant(String label) {
+        this.label = label;
+    }
+
+    /** @return {@code Ok(payload)} or {@code Err(payload)}, as {@code Result.toString()} */
+    public String render(Object payload) {
+        return label + "(" + payload + ")";
+    }
+}
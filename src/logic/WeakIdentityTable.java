@@ -0,0 +1,57 @@
+package logic;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Side table attaching a value to an object by identity, for records that
+ * cannot carry extra fields. Keys are held weakly: an entry goes away with
+ * its key, and cleared entries are dropped on the next {@link #put}.
+ */
+final class WeakIdentityTable<V> {
+
+    /** Weak key compared by identity, so equal records keep their own entry. */
+    private static final class IdentityRef extends WeakReference<Object> {
+        private final int hash;
+
+        IdentityRef(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            Object referent = get();
+            return referent != null && o instanceof IdentityRef other && other.get() == referent;
+        }
+    }
+
+    private final ConcurrentHashMap<IdentityRef, V> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> cleared = new ReferenceQueue<>();
+
+    void put(Object key, V value) {
+        expunge();
+        entries.put(new IdentityRef(key, cleared), value);
+    }
+
+    /** @return the value attached to {@code key}, or {@code null} */
+    V get(Object key) {
+        return entries.get(new IdentityRef(key, null));
+    }
+
+    private void expunge() {
+        Object ref;
+        while ((ref = cleared.poll()) != null) {
+            entries.remove(ref);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package logic;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+
+/**
+ * Runtime side of the load-time weaving agent ({@code agent.ResultAgent}).
+ *
+ * <p>
+ * Every woven method gets a constant site id from {@link #register} while its
+ * class is being transformed, and calls {@link #returned} with the
+ * {@code Result} it is about to return. Annotations are resolved once per site
+ * on first use; after that a call is an array read plus the dispatch itself,
+ * with no stack walk.
+ * </p>
+ */
+public final class WeaveHooks {
+
+    private static final class Site {
+        final String methodName;
+        final String descriptor;
+        volatile Resolved resolved;
+
+        Site(String methodName, String descriptor) {
+            this.methodName = methodName;
+            this.descriptor = descriptor;
+        }
+    }
+
+    private record Resolved(CallSites.CallSite site) {
+    }
+
+    private static final Resolved UNRESOLVED = new Resolved(null);
+
+    /** How to read a returned {@code Result.Ok} / {@code Result.Err} without a dependency on it. */
+    private record Shape(Variant variant, MethodHandle accessor) {
+    }
+
+    private static final ClassValue<Shape> SHAPES = new ClassValue<>() {
+        @Override
+        protected Shape computeValue(Class<?> type) {
+            RecordComponent[] components = type.getRecordComponents();
+            if (components == null || components.length != 1 || !"Result".equals(type.getNestHost().getName())) {
+                return null;
+            }
+            Variant variant = switch (type.getSimpleName()) {
+                case "Ok" -> Variant.OK;
+                case "Err" -> Variant.ERR;
+                default -> null;
+            };
+            if (variant == null) {
+                return null;
+            }
+            try {
+                return new Shape(variant, MethodHandles.publicLookup().unreflect(components[0].getAccessor())
+                        .asType(MethodType.methodType(Object.class, Object.class)));
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+    };
+
+    private static volatile Site[] sites = new Site[0];
+
+    private WeaveHooks() {
+    }
+
+    /**
+     * Allocates a site id for a woven method.
+     *
+     * @param className  internal name of the declaring class
+     * @param methodName name of the annotated method
+     * @param descriptor its JVM method descriptor
+     * @return the id the woven code passes to {@link #returned}
+     */
+    public static synchronized int register(String className, String methodName, String descriptor) {
+        Site[] current = sites;
+        Site[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = new Site(methodName, descriptor);
+        sites = grown;
+        return current.length;
+    }
+
+    /**
+     * Called by a woven method right before it returns.
+     *
+     * @param result   the returned {@code Result} (may be {@code null})
+     * @param receiver {@code this} of the woven method, {@code null} if static
+     * @param owner    class declaring the woven method
+     * @param site     id obtained from {@link #register}
+     */
+    public static void returned(Object result, Object receiver, Class<?> owner, int site) {
+        if (result == null || Tracing.isUntraced(result)) {
+            return;
+        }
+        Site s = sites[site];
+        Resolved r = s.resolved;
+        if (r == null) {
+            r = resolve(owner, s);
+            s.resolved = r;
+        }
+        if (r == UNRESOLVED) {
+            return;
+        }
+        Shape shape = SHAPES.get(result.getClass());
+        if (shape == null || !Tracing.MODE.attributes(shape.variant())) {
+            return;
+        }
+        Object payload;
+        try {
+            payload = shape.accessor().invoke(result);
+        } catch (Throwable e) {
+            return;
+        }
+        AnnotationLogic.dispatch(owner, receiver, r.site(), -1, shape.variant(), payload);
+    }
+
+    private static Resolved resolve(Class<?> owner, Site site) {
+        AnnotationCache.Entry entry = AnnotationCache.lookup(owner, site.methodName, site.descriptor);
+        return entry == null ? UNRESOLVED : new Resolved(entry.site());
+    }
+}
@@ -0,0 +1,28 @@
+package logic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Time spent attributing one {@code Result} to its call sites. Disabled unless
+ * a recording turns it on.
+ */
+@Name("result.CheckAnnotationCost")
+@Label("Check Annotation Cost")
+@Category("Result")
+@Description("Call-site attribution of one Result (stack walk or scope lookup)")
+@Enabled(false)
+@StackTrace(false)
+public final class CheckAnnotationCostEvent extends Event {
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Frames Visited")
+    public int frames;
+}
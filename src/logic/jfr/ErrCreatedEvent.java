@@ -0,0 +1,37 @@
+package logic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An {@code Err} construction, with its stack trace so error propagation can
+ * be followed in a recording. Disabled unless a recording turns it on.
+ */
+@Name("result.ErrCreated")
+@Label("Err Created")
+@Category("Result")
+@Description("An Err was constructed")
+@Enabled(false)
+@StackTrace(true)
+public final class ErrCreatedEvent extends Event {
+
+    @Label("Error Type")
+    Class<?> errorType;
+
+    @Label("Error")
+    String error;
+
+    public static void emit(Object error) {
+        ErrCreatedEvent event = new ErrCreatedEvent();
+        if (event.isEnabled()) {
+            event.errorType = error.getClass();
+            event.error = String.valueOf(error);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package logic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One {@code @IfError} handler run, timed. Disabled unless a recording turns it on. */
+@Name("result.HandlerInvoked")
+@Label("IfError Handler Invoked")
+@Category("Result")
+@Description("An @IfError handler ran")
+@Enabled(false)
+@StackTrace(false)
+public final class HandlerInvokedEvent extends Event {
+
+    @Label("Handler")
+    public String handler;
+
+    @Label("Failed")
+    public boolean failed;
+}
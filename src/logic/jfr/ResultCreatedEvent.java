@@ -0,0 +1,36 @@
+package logic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import logic.Variant;
+
+/** Every {@code Ok} / {@code Err} construction. Disabled unless a recording turns it on. */
+@Name("result.ResultCreated")
+@Label("Result Created")
+@Category("Result")
+@Description("An Ok or Err was constructed")
+@Enabled(false)
+@StackTrace(false)
+public final class ResultCreatedEvent extends Event {
+
+    @Label("Variant")
+    String variant;
+
+    @Label("Payload Type")
+    Class<?> payloadType;
+
+    public static void emit(Variant variant, Object payload) {
+        ResultCreatedEvent event = new ResultCreatedEvent();
+        if (event.isEnabled()) {
+            event.variant = variant.name();
+            event.payloadType = payload.getClass();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package processing;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Compile-time companion of {@code @Log} / {@code @IfError}.
+ *
+ * <p>
+ * With {@code -Aresult.index=true}, collects every class that declares an
+ * annotated method and writes them to {@code META-INF/result/annotated}, the
+ * index {@code logic.AnnotationIndex} reads at startup under
+ * {@code -Dresult.annotations=indexed}. The index is written even when it is
+ * empty, which is what switches tracing off for code without annotations, so
+ * it is only written on request: a jar built without the option never claims
+ * to know about the rest of the class path.
+ * Classes that inherit a class- or package-level {@code @Log} (from the
+ * class itself, a superclass or the package) are listed as well.
+ * </p>
+ *
+ * <p>
+ * {@code @IfError} targets are checked as well: a handler name that does not
+ * exist in the declaring class is a compile error instead of a silently
+ * ignored failure at runtime.
+ * </p>
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(ResultProcessor.INDEX_OPTION)
+public class ResultProcessor extends AbstractProcessor {
+
+    static final String INDEX_RESOURCE = "META-INF/result/annotated";
+    static final String INDEX_OPTION = "result.index";
+
+    private final Set<String> annotatedClasses = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            if (!isResultAnnotation(annotation)) {
+                continue;
+            }
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.METHOD) {
+                    continue;
+                }
+                TypeElement owner = (TypeElement) element.getEnclosingElement();
+                annotatedClasses.add(processingEnv.getElementUtils().getBinaryName(owner).toString());
+                if (annotation.getQualifiedName().contentEquals("annotations.IfError")) {
+                    checkHandler((ExecutableElement) element, owner);
+                }
+            }
+        }
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collectLogged(type);
+        }
+        if (roundEnv.processingOver() && Boolean.parseBoolean(processingEnv.getOptions().get(INDEX_OPTION))) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private static boolean isResultAnnotation(TypeElement annotation) {
+        return annotation.getQualifiedName().contentEquals("annotations.Log")
+                || annotation.getQualifiedName().contentEquals("annotations.IfError");
+    }
+
+    private void collectLogged(TypeElement type) {
+        if (type.getKind() == ElementKind.CLASS && inheritsLog(type)) {
+            annotatedClasses.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collectLogged(nested);
+        }
+    }
+
+    private boolean inheritsLog(TypeElement type) {
+        for (TypeElement c = type; c != null; c = superclass(c)) {
+            if (hasLog(c)) {
+                return true;
+            }
+        }
+        return hasLog(processingEnv.getElementUtils().getPackageOf(type));
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        Element element = processingEnv.getTypeUtils().asElement(type.getSuperclass());
+        return element instanceof TypeElement t ? t : null;
+    }
+
+    private static boolean hasLog(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals("annotations.Log")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void checkHandler(ExecutableElement method, TypeElement owner) {
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!type.getQualifiedName().contentEquals("annotations.IfError")) {
+                continue;
+            }
+            String handler = null;
+            for (var e : mirror.getElementValues().entrySet()) {
+                if (e.getKey().getSimpleName().contentEquals("value")) {
+                    handler = (String) ((AnnotationValue) e.getValue()).getValue();
+                }
+            }
+            if (handler == null) {
+                return;
+            }
+            for (ExecutableElement candidate : ElementFilter.methodsIn(owner.getEnclosedElements())) {
+                if (candidate.getSimpleName().contentEquals(handler)) {
+                    return;
+                }
+            }
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "@IfError handler '" + handler + "' is not declared in " + owner.getQualifiedName(),
+                    method, mirror);
+        }
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject file = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+            try (Writer writer = file.openWriter()) {
+                writer.write("# generated by processing.ResultProcessor\n");
+                for (String name : annotatedClasses) {
+                    writer.write(name);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "could not write " + INDEX_RESOURCE + ": " + e.getMessage());
+        }
+    }
+}
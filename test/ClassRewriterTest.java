@@ -0,0 +1,150 @@
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import annotations.Log;
+import logic.ResultEvent;
+import logic.ResultListener;
+import logic.ResultListeners;
+import logic.Variant;
+
+/**
+ * Checks the methods woven by {@code agent.ClassRewriter}: arguments of every
+ * width reach the original body unchanged, static and instance methods keep
+ * their receiver, {@code synchronized} still holds the monitor, and a
+ * class-level {@code @Log} weaves every method returning a {@code Result},
+ * and untraced results stay silent even when woven methods return them.
+ *
+ * <pre>{@code
+ * make test
+ * }</pre>
+ *
+ * Runs under the agent; every woven class goes through the verifier.
+ */
+public class ClassRewriterTest {
+
+    private static final List<ResultEvent> EVENTS = new CopyOnWriteArrayList<>();
+    private static int checks;
+    private static int failures;
+
+    static class Subject {
+        private final long base = 1000;
+
+        @Log
+        static Result<Long, String> wide(long a, double b, int c, long d) {
+            return Result.ok(a + (long) b + c + d);
+        }
+
+        @Log
+        Result<Long, String> instanceWide(double a, long b) {
+            return Result.ok(base + (long) a + b);
+        }
+
+        @Log
+        Result<String, String> arrays(int[] a, String[][] b, long[] c, double d) {
+            return Result.ok(a.length + ":" + b[1][0] + ":" + c[0] + ":" + d);
+        }
+
+        @Log
+        synchronized Result<Boolean, String> locked(long x) {
+            return Result.ok(Thread.holdsLock(this) && x == Long.MAX_VALUE);
+        }
+
+        @Log
+        static synchronized Result<Boolean, String> lockedStatic(double x) {
+            return Result.ok(Thread.holdsLock(Subject.class) && x == -0.5);
+        }
+
+        @Log
+        Result<Integer, String> failing(double x) {
+            return Result.err("failed " + x);
+        }
+
+        @Log
+        static Result<Integer, String> untraced() {
+            return Result.errUntraced("quiet");
+        }
+
+        @Log
+        static Result<Integer, String> untracedOuter() {
+            return untraced();
+        }
+
+        Result<Integer, String> plain() {
+            return Result.ok(0);
+        }
+    }
+
+    @Log
+    static class Whole {
+        Result<Integer, String> narrow(char c, float f, short s, byte b, boolean z) {
+            return Result.ok(c + (int) f + s + b + (z ? 1 : 0));
+        }
+
+        static Result<Long, String> wideStatic(long x, double y) {
+            return Result.ok(x - (long) y);
+        }
+
+        int notAResult() {
+            return 7;
+        }
+    }
+
+    public static void main(String[] args) {
+        check("agent installed", Boolean.getBoolean("result.agent"));
+
+        ResultListener collect = EVENTS::add;
+        ResultListeners.unregister(ResultListeners.LOGGER);
+        ResultListeners.register(collect);
+
+        Subject subject = new Subject();
+        check("long/double/int/long", Subject.wide(1L << 40, 2.75, -3, 4L).equals(Result.ok((1L << 40) + 2 - 3 + 4)));
+        check("instance double/long", subject.instanceWide(5.5, -6L).equals(Result.ok(999L)));
+        check("arrays", subject.arrays(new int[3], new String[][] { {}, { "x" } }, new long[] { 9 }, 1.5)
+                .equals(Result.ok("3:x:9:1.5")));
+        check("synchronized instance", subject.locked(Long.MAX_VALUE).equals(Result.ok(true)));
+        check("synchronized static", Subject.lockedStatic(-0.5).equals(Result.ok(true)));
+        check("untraced", Subject.untracedOuter().equals(Result.err("quiet")));
+        check("err", subject.failing(0.25).equals(Result.err("failed 0.25")));
+        check("unannotated", subject.plain().equals(Result.ok(0)));
+
+        Whole whole = new Whole();
+        check("class @Log narrow", whole.narrow('a', 2.5f, (short) 3, (byte) 4, true).equals(Result.ok(97 + 2 + 3 + 4 + 1)));
+        check("class @Log static", Whole.wideStatic(10L, 3.0).equals(Result.ok(7L)));
+        check("class @Log non-Result", whole.notAResult() == 7);
+
+        for (String name : List.of("wide", "instanceWide", "arrays", "locked", "lockedStatic", "failing")) {
+            check(name + " woven", woven(Subject.class, name));
+        }
+        check("plain not woven", !woven(Subject.class, "plain"));
+        check("narrow woven", woven(Whole.class, "narrow"));
+        check("wideStatic woven", woven(Whole.class, "wideStatic"));
+        check("notAResult not woven", !woven(Whole.class, "notAResult"));
+
+        ResultListeners.unregister(collect);
+        List<String> seen = EVENTS.stream().map(e -> e.methodName() + ":" + e.variant()).toList();
+        check("events " + seen, seen.equals(List.of("wide:OK", "instanceWide:OK", "arrays:OK", "locked:OK",
+                "lockedStatic:OK", "failing:ERR", "narrow:OK", "wideStatic:OK")));
+        check("err payload", EVENTS.get(5).variant() == Variant.ERR && "failed 0.25".equals(EVENTS.get(5).payload()));
+
+        System.out.printf("%d checks, %d failed%n", checks, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean woven(Class<?> type, String name) {
+        return Arrays.stream(type.getDeclaredMethods())
+                .map(Method::getName)
+                .anyMatch((name + "$result")::equals);
+    }
+
+    private static void check(String what, boolean ok) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.tools.ToolProvider;
+
+/**
+ * Checks that attribution keeps nothing of an application class loader alive:
+ * a class with {@code @Log} and {@code @IfError} (rate limit, async and
+ * coalesced handlers) is loaded by its own loader and run, and the loader must
+ * then be collectable. The first results also start the library's threads on
+ * that class's stack.
+ *
+ * <pre>{@code
+ * make test
+ * }</pre>
+ */
+public class ClassUnloadingTest {
+
+    private static final String SOURCE = """
+            import annotations.IfError;
+            import annotations.Log;
+
+            public class Unloadable implements Runnable {
+                public static volatile int handled;
+
+                static void onError(Object e) {
+                    handled++;
+                }
+
+                @Log(maxPerSecond = 1)
+                @IfError(value = "onError", async = true, timeoutMillis = 1000)
+                static Result<Integer, String> fail() {
+                    return Result.err("boom");
+                }
+
+                @IfError(value = "onError", coalesceMillis = 10, timeoutMillis = 1000)
+                static Result<Integer, String> burst() {
+                    return Result.err("burst");
+                }
+
+                @Log
+                static Result<Integer, String> ok() {
+                    return Result.ok(1);
+                }
+
+                public void run() {
+                    for (int i = 0; i < 5; i++) {
+                        fail();
+                        burst();
+                    }
+                    ok();
+                    long deadline = System.currentTimeMillis() + 5000;
+                    while (handled < 6 && System.currentTimeMillis() < deadline) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }
+            """;
+
+    private static int checks;
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("unloading-test");
+        Path source = dir.resolve("Unloadable.java");
+        Files.writeString(source, SOURCE);
+        int status = ToolProvider.getSystemJavaCompiler().run(null, null, null, "-proc:none", "-cp",
+                System.getProperty("java.class.path"), "-d", dir.toString(), source.toString());
+        check("compiled", status == 0);
+
+        WeakReference<ClassLoader> loader = runIsolated(dir.toUri().toURL());
+        for (int i = 0; i < 50 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        check("class loader collected", loader.get() == null);
+
+        System.out.printf("%d checks, %d failed%n", checks, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static WeakReference<ClassLoader> runIsolated(URL classes) throws ReflectiveOperationException,
+            IOException {
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { classes },
+                ClassUnloadingTest.class.getClassLoader())) {
+            Class<?> type = loader.loadClass("Unloadable");
+            ((Runnable) type.getDeclaredConstructor().newInstance()).run();
+            check("handlers ran", type.getDeclaredField("handled").getInt(null) >= 6);
+            return new WeakReference<>(loader);
+        }
+    }
+
+    private static void check(String what, boolean ok) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+}
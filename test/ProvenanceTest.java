@@ -0,0 +1,55 @@
+import java.util.List;
+
+/**
+ * Checks {@code Err} provenance: overloads of one method that create an
+ * {@code Err} at the same bytecode index keep their own frames, and repeated
+ * creation at a site reports the same frame.
+ *
+ * <pre>{@code
+ * make test
+ * }</pre>
+ *
+ * Runs with {@code -Dresult.err.provenance=2}.
+ */
+public class ProvenanceTest {
+
+    private static int checks;
+    private static int failures;
+
+    static Result<Integer, String> fail(int reason) {
+        return Result.err("int");
+    }
+
+    static Result<Integer, String> fail(String reason) {
+        return Result.err("string");
+    }
+
+    public static void main(String[] args) {
+        List<StackTraceElement> first = provenance(fail(1));
+        List<StackTraceElement> second = provenance(fail("x"));
+        check("depth", first.size() == 2 && second.size() == 2);
+        check("innermost frame is the factory's caller",
+                first.get(0).getMethodName().equals("fail") && second.get(0).getMethodName().equals("fail"));
+        check("overloads keep their own line, got " + first.get(0) + " and " + second.get(0),
+                first.get(0).getLineNumber() != second.get(0).getLineNumber());
+        check("same site, same frame", provenance(fail(2)).get(0).equals(first.get(0))
+                && provenance(fail("y")).get(0).equals(second.get(0)));
+
+        System.out.printf("%d checks, %d failed%n", checks, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static List<StackTraceElement> provenance(Result<Integer, String> result) {
+        return ((Result.Err<Integer, String>) result).provenance();
+    }
+
+    private static void check(String what, boolean ok) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+}
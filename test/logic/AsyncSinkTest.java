@@ -0,0 +1,173 @@
+package logic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks {@link AsyncSink}: several producers share a small ring, every line
+ * that is written arrives once and in each producer's order, and each
+ * {@link AsyncSink.Overflow} policy accounts for every event it was given.
+ *
+ * <pre>{@code
+ * make test
+ * }</pre>
+ */
+public class AsyncSinkTest {
+
+    private static final int PRODUCERS = 8;
+    private static final int PER_PRODUCER = 20_000;
+    private static final int TOTAL = PRODUCERS * PER_PRODUCER;
+
+    private static int checks;
+    private static int failures;
+
+    /** Collects the writer's output; {@code delayNanos} per write slows the writer down. */
+    private static final class Capture extends ByteArrayOutputStream {
+        private final long delayNanos;
+        private boolean lineStart = true;
+        private volatile int produced;
+
+        Capture(long delayNanos) {
+            this.delayNanos = delayNanos;
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            if (delayNanos > 0) {
+                long end = System.nanoTime() + delayNanos;
+                while (System.nanoTime() < end) {
+                    Thread.onSpinWait();
+                }
+            }
+            super.write(b, off, len);
+            int n = produced;
+            for (int i = off; i < off + len; i++) {
+                if (lineStart && b[i] == 'p') {
+                    n++;
+                }
+                lineStart = b[i] == '\n';
+            }
+            produced = n;
+        }
+
+        /** @return the producer lines written so far, without the writer's loss reports */
+        synchronized List<String> lines() {
+            List<String> lines = new ArrayList<>();
+            for (String line : toString().split("\n")) {
+                if (line.startsWith("p")) {
+                    lines.add(line);
+                }
+            }
+            return lines;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        drop();
+        block();
+        sample();
+        wakesParkedWriter();
+
+        System.out.printf("%d checks, %d failed%n", checks, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void drop() throws Exception {
+        Capture out = new Capture(20_000);
+        AsyncSink sink = new AsyncSink(64, 16, AsyncSink.Overflow.DROP, 1, new PrintStream(out, false));
+        produce(sink);
+        List<String> lines = drained(out, sink, TOTAL);
+        check("drop: lost events", sink.dropped() > 0);
+        check("drop: nothing sampled", sink.sampledOut() == 0);
+        check("drop: written + dropped = sent", lines.size() + sink.dropped() == TOTAL);
+        checkOrder("drop", lines);
+    }
+
+    private static void block() throws Exception {
+        Capture out = new Capture(20_000);
+        AsyncSink sink = new AsyncSink(16, 8, AsyncSink.Overflow.BLOCK, 1, new PrintStream(out, false));
+        produce(sink);
+        List<String> lines = drained(out, sink, TOTAL);
+        check("block: nothing dropped", sink.dropped() == 0 && sink.sampledOut() == 0);
+        check("block: every event written, got " + lines.size(), lines.size() == TOTAL);
+        checkOrder("block", lines);
+    }
+
+    private static void sample() throws Exception {
+        Capture out = new Capture(20_000);
+        AsyncSink sink = new AsyncSink(64, 16, AsyncSink.Overflow.SAMPLE, 4, new PrintStream(out, false));
+        produce(sink);
+        List<String> lines = drained(out, sink, TOTAL);
+        check("sample: sampled out under pressure", sink.sampledOut() > 0);
+        check("sample: written + dropped + sampled out = sent",
+                lines.size() + sink.dropped() + sink.sampledOut() == TOTAL);
+        checkOrder("sample", lines);
+    }
+
+    private static void wakesParkedWriter() throws Exception {
+        Capture out = new Capture(0);
+        AsyncSink sink = new AsyncSink(64, 16, AsyncSink.Overflow.DROP, 1, new PrintStream(out, false));
+        // well past the back-off, so the writer is parked without a timeout
+        Thread.sleep(200);
+        long start = System.nanoTime();
+        sink.note("p0 0\n");
+        while (out.produced == 0 && System.nanoTime() - start < 5_000_000_000L) {
+            Thread.sleep(1);
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        check("parked writer woken by a producer (" + millis + " ms)", out.produced == 1 && millis < 1000);
+    }
+
+    /** {@link #PRODUCERS} threads each send {@link #PER_PRODUCER} numbered lines. */
+    private static void produce(AsyncSink sink) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < PER_PRODUCER; i++) {
+                    sink.note("p" + producer + " " + i + "\n");
+                }
+            }));
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    /** Waits until the writer has accounted for all {@code sent} events. */
+    private static List<String> drained(Capture out, AsyncSink sink, int sent) throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (out.produced + sink.dropped() + sink.sampledOut() < sent && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return out.lines();
+    }
+
+    /** Every line is written at most once, and each producer's lines in the order sent. */
+    private static void checkOrder(String what, List<String> lines) {
+        int[] last = new int[PRODUCERS];
+        Arrays.fill(last, -1);
+        boolean ordered = true;
+        for (String line : lines) {
+            int space = line.indexOf(' ');
+            int producer = Integer.parseInt(line.substring(1, space));
+            int seq = Integer.parseInt(line.substring(space + 1));
+            ordered &= seq > last[producer];
+            last[producer] = seq;
+        }
+        check(what + ": each producer in order, no duplicates", ordered);
+    }
+
+    private static void check(String what, boolean ok) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+}
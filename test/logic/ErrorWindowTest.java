@@ -0,0 +1,106 @@
+package logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks error coalescing: a window closed while an error is being added
+ * reports a count and a last error that belong together, and a burst from
+ * many threads reaches the handler as summaries that account for every error.
+ *
+ * <pre>{@code
+ * make test
+ * }</pre>
+ */
+public class ErrorWindowTest {
+
+    private static final LongAdder SUMMARIZED = new LongAdder();
+    private static final AtomicLong SUMMARIES = new AtomicLong();
+    private static volatile boolean lastMissing;
+
+    private static int checks;
+    private static int failures;
+
+    static void collect(ErrorSummary summary) {
+        SUMMARIZED.add(summary.count());
+        if (summary.last() == null) {
+            lastMissing = true;
+        }
+        SUMMARIES.incrementAndGet();
+    }
+
+    public static void main(String[] args) throws Exception {
+        closeWhileAdding();
+        burst();
+
+        System.out.printf("%d checks, %d failed%n", checks, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void closeWhileAdding() throws InterruptedException {
+        int inconsistent = 0;
+        for (int round = 0; round < 2000; round++) {
+            ErrorWindow window = new ErrorWindow(null, 0L);
+            long[] refused = new long[1];
+            Thread producer = Thread.ofPlatform().start(() -> {
+                long i = 1;
+                while (window.add(i)) {
+                    i++;
+                }
+                refused[0] = i;
+            });
+            Thread.onSpinWait();
+            ErrorSummary summary = window.close(10);
+            producer.join();
+            // errors 0 .. refused - 1 made it in
+            if (summary.count() != refused[0] || !summary.last().equals(refused[0] - 1)) {
+                inconsistent++;
+            }
+        }
+        check("close: count and last error agree, " + inconsistent + " rounds did not", inconsistent == 0);
+    }
+
+    private static void burst() throws InterruptedException {
+        CallSites.CallSite site = CallSites.register("ErrorWindowTest", "burst", "()V", null, null);
+        ErrorHandler handler = ErrorHandler.resolve(ErrorWindowTest.class, "collect");
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 20_000; i++) {
+                    HandlerExecutor.coalesce(site, handler, null, "e" + i, 5, 1000);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (SUMMARIZED.sum() < 160_000 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        check("burst: every error in exactly one summary, got " + SUMMARIZED.sum(), SUMMARIZED.sum() == 160_000);
+        check("burst: fewer summaries than errors", SUMMARIES.get() < 160_000);
+        check("burst: every summary has its last error", !lastMissing);
+    }
+
+    private static void check(String what, boolean ok) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+}
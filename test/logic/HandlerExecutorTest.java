@@ -0,0 +1,69 @@
+package logic;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks how {@link HandlerExecutor} counts interrupted handlers: a timeout
+ * of an async handler is a timeout, any other interrupt is a failure and
+ * stays visible to the thread that was interrupted.
+ *
+ * <pre>{@code
+ * make test
+ * }</pre>
+ */
+public class HandlerExecutorTest {
+
+    private static final CountDownLatch FINISHED = new CountDownLatch(2);
+
+    private static int checks;
+    private static int failures;
+
+    static void sleeps() throws InterruptedException {
+        try {
+            Thread.sleep(10_000);
+        } finally {
+            FINISHED.countDown();
+        }
+    }
+
+    static void interruptsItself() throws InterruptedException {
+        try {
+            throw new InterruptedException("not a timeout");
+        } finally {
+            FINISHED.countDown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ErrorHandler sync = ErrorHandler.resolve(HandlerExecutorTest.class, "sleeps");
+        Thread.currentThread().interrupt();
+        HandlerExecutor.run(sync, null, "e");
+        check("sync: interrupted thread keeps its interrupt", Thread.interrupted());
+        check("sync: counted as a failure", sync.counters.failures.sum() == 1 && sync.counters.timeouts.sum() == 0);
+
+        ErrorHandler timedOut = ErrorHandler.resolve(HandlerExecutorTest.class, "sleeps");
+        ErrorHandler interrupted = ErrorHandler.resolve(HandlerExecutorTest.class, "interruptsItself");
+        HandlerExecutor.submit(timedOut, null, "e", 50);
+        HandlerExecutor.submit(interrupted, null, "e", 10_000);
+        check("async: both finished", FINISHED.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        check("async: timeout counted once, not as a failure",
+                timedOut.counters.timeouts.sum() == 1 && timedOut.counters.failures.sum() == 0);
+        check("async: other interrupt counted as a failure",
+                interrupted.counters.failures.sum() == 1 && interrupted.counters.timeouts.sum() == 0);
+
+        System.out.printf("%d checks, %d failed%n", checks, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(String what, boolean ok) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package logic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import annotations.Log;
+
+/**
+ * Writes events through {@link MappedSink} and reads them back with
+ * {@link MappedLogDecoder}: content, order, wrap-around, truncation, reuse of
+ * an existing file and concurrent writers. Also checks that a mapped sink
+ * that cannot be set up leaves {@link LoggerLogic} logging to {@code stdout}.
+ *
+ * <pre>{@code
+ * make test
+ * }</pre>
+ */
+public class MappedSinkTest {
+
+    private static int checks;
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("mapped-sink-test");
+        // must run first: LoggerLogic picks its sink once, when it is initialised
+        fallsBackToStdout(dir);
+        roundTrip(dir.resolve("round-trip.bin"));
+        wrapsAround(dir.resolve("wrap.bin"));
+        truncates(dir.resolve("truncate.bin"));
+        reusesFile(dir.resolve("reuse.bin"));
+        concurrentWriters(dir.resolve("concurrent.bin"));
+        rejectsOversizedRing(dir.resolve("oversized.bin"));
+
+        System.out.printf("%d checks, %d failed%n", checks, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /** Only carries the {@code @Log} for the call site below. */
+    @Log
+    private static void logged() {
+    }
+
+    private static void fallsBackToStdout(Path dir) throws Exception {
+        // a directory cannot be mapped
+        System.setProperty("result.log.sink", "mapped");
+        System.setProperty("result.log.mapped.file", dir.toString());
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true));
+        System.setErr(new PrintStream(err, true));
+        try {
+            Log log = MappedSinkTest.class.getDeclaredMethod("logged").getAnnotation(Log.class);
+            CallSites.CallSite site = CallSites.register("MappedSinkTest", "logged", "()V", log, null);
+            LoggerLogic.log(ResultEvent.of(Variant.OK, "x", site.id(), "logged", 1));
+            LoggerLogic.log(ResultEvent.of(Variant.ERR, "y", site.id(), "logged", 2));
+        } catch (Throwable e) {
+            check("fallback: logging does not throw, got " + e, false);
+        } finally {
+            System.setOut(stdout);
+            System.setErr(stderr);
+            System.clearProperty("result.log.sink");
+            System.clearProperty("result.log.mapped.file");
+        }
+        check("fallback: reported once on stderr",
+                err.toString().split("cannot use the mapped sink", -1).length == 2);
+        check("fallback: written to stdout",
+                out.toString().equals("[1] logged() -> Ok(x) \n[2] logged() -> Err(y) \n"));
+    }
+
+    private static void roundTrip(Path file) throws IOException {
+        MappedSink sink = new MappedSink(file, 16, 256);
+        sink.write(ResultEvent.of(Variant.OK, "value", 3, "find", 12));
+        sink.write(ResultEvent.of(Variant.ERR, "missing é", 4, "load", -1));
+        sink.note("[rate-limit] find() suppressed 5 similar events \n");
+        check("round trip", texts(file).equals(List.of("[12] find() -> Ok(value)", "[?] load() -> Err(missing é)",
+                "[rate-limit] find() suppressed 5 similar events")));
+    }
+
+    private static void wrapsAround(Path file) throws IOException {
+        MappedSink sink = new MappedSink(file, 8, 64);
+        for (int i = 0; i < 20; i++) {
+            sink.note("n" + i);
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 12; i < 20; i++) {
+            expected.add("n" + i);
+        }
+        check("wrap: newest slotCount events, oldest first", texts(file).equals(expected));
+    }
+
+    private static void truncates(Path file) throws IOException {
+        MappedSink sink = new MappedSink(file, 4, 64);
+        sink.write(ResultEvent.of(Variant.ERR, "e".repeat(100), 0, "abc", 1));
+        // 64-byte slot: 28 header bytes, 3 for the method name, 33 left for the payload
+        check("truncate: payload cut to the slot",
+                texts(file).equals(List.of("[1] abc() -> Err(" + "e".repeat(33) + ")")));
+    }
+
+    private static void reusesFile(Path file) throws IOException {
+        new MappedSink(file, 8, 64).note("first");
+        new MappedSink(file, 8, 64).note("second");
+        check("reuse: appended after the existing records", texts(file).equals(List.of("first", "second")));
+        new MappedSink(file, 16, 64).note("third");
+        check("reuse: other geometry starts over", texts(file).equals(List.of("third")));
+    }
+
+    private static void concurrentWriters(Path file) throws Exception {
+        MappedSink sink = new MappedSink(file, 8192, 64);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int writer = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    sink.note("w" + writer + " " + i);
+                }
+            }));
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        List<String> texts = texts(file);
+        check("concurrent: every record decoded once", texts.size() == 4000 && new HashSet<>(texts).size() == 4000);
+    }
+
+    private static void rejectsOversizedRing(Path file) {
+        try {
+            new MappedSink(file, Integer.MAX_VALUE, 256);
+            check("oversized: rejected", false);
+        } catch (IllegalArgumentException e) {
+            check("oversized: rejected before the file is created", !Files.exists(file));
+        }
+    }
+
+    /** @return the decoded lines without their timestamps */
+    private static List<String> texts(Path file) throws IOException {
+        List<String> texts = new ArrayList<>();
+        for (String line : MappedLogDecoder.decode(file)) {
+            texts.add(line.substring(line.indexOf(' ') + 1));
+        }
+        return texts;
+    }
+
+    private static void check(String what, boolean ok) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+}
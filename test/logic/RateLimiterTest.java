@@ -0,0 +1,135 @@
+package logic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import annotations.Log;
+
+/**
+ * Checks {@link RateLimiter}: the one-second burst, refill, exact accounting
+ * of refused events under contention, and that the last "suppressed" summary
+ * of a storm still reaches an asynchronous sink when the JVM exits.
+ *
+ * <pre>{@code
+ * make test
+ * }</pre>
+ */
+public class RateLimiterTest {
+
+    private static int checks;
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("storm")) {
+            storm();
+            return;
+        }
+        burst();
+        refills();
+        concurrent();
+        summaryAtExit();
+
+        System.out.printf("%d checks, %d failed%n", checks, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void burst() {
+        RateLimiter limiter = new RateLimiter(100);
+        int admitted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (limiter.tryAcquire()) {
+                admitted++;
+            }
+        }
+        // one second worth of events, give or take the time the loop took
+        check("burst: about one second of events, got " + admitted, admitted >= 99 && admitted <= 102);
+        long suppressed = limiter.takeSuppressed();
+        check("burst: every refusal counted", suppressed == 1000 - admitted);
+        check("burst: counted once", limiter.takeSuppressed() == 0);
+    }
+
+    private static void refills() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(100);
+        while (limiter.tryAcquire()) {
+        }
+        Thread.sleep(200);
+        int admitted = 0;
+        while (limiter.tryAcquire()) {
+            admitted++;
+        }
+        check("refill: about 20 events after 200 ms, got " + admitted, admitted >= 18 && admitted <= 40);
+    }
+
+    private static void concurrent() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(1000);
+        LongAdder admitted = new LongAdder();
+        LongAdder refused = new LongAdder();
+        LongAdder reported = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    if (limiter.tryAcquire()) {
+                        admitted.increment();
+                    } else {
+                        refused.increment();
+                    }
+                    if (i % 1000 == 0) {
+                        reported.add(limiter.takeSuppressed());
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        reported.add(limiter.takeSuppressed());
+        check("concurrent: at most the burst plus the rate, got " + admitted.sum() + " in " + seconds + " s",
+                admitted.sum() <= 1000 * (1 + seconds) + 1);
+        check("concurrent: refusals reported exactly once", reported.sum() == refused.sum());
+    }
+
+    /** Only carries the {@code @Log} of the storm's call site. */
+    @Log(maxPerSecond = 10)
+    private static void limited() {
+    }
+
+    /** Child JVM: a storm through the async sink, then exit with summaries still pending. */
+    private static void storm() throws Exception {
+        Log log = RateLimiterTest.class.getDeclaredMethod("limited").getAnnotation(Log.class);
+        CallSites.CallSite site = CallSites.register("RateLimiterTest", "limited", "()V", log, null);
+        for (int i = 0; i < 1000; i++) {
+            LoggerLogic.log(ResultEvent.of(Variant.ERR, "e" + i, site.id(), "limited", 1));
+        }
+    }
+
+    private static void summaryAtExit() throws IOException, InterruptedException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process child = new ProcessBuilder(java, "-Dresult.log.sink=async", "-cp",
+                System.getProperty("java.class.path"), RateLimiterTest.class.getName(), "storm")
+                .redirectErrorStream(true)
+                .start();
+        String out = new String(child.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        child.waitFor();
+        String[] lines = out.strip().split("\n");
+        int written = lines.length - 1;
+        check("exit: summary written last, got " + lines[lines.length - 1],
+                lines[lines.length - 1].equals("[rate-limit] limited() suppressed " + (1000 - written)
+                        + " similar events"));
+    }
+
+    private static void check(String what, boolean ok) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+}